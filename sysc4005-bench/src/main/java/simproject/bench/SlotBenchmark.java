@@ -0,0 +1,83 @@
+package simproject.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import simproject.ConnectivityMatrix;
+import simproject.SchedulingPolicies;
+import simproject.SchedulingPolicy;
+import simproject.Simulator;
+import simproject.TrafficGenerator;
+import simproject.XoshiroRandomSource;
+
+/**
+ * Slots per second of a full time slot (connectivity, arrivals, scheduling,
+ * occupancy) for every policy and topology. Run with {@code -prof gc} to get
+ * the bytes allocated per slot; delays=false runs the queues in counting mode,
+ * which drops the arrival slot ring buffers and their growth.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SlotBenchmark {
+	
+	public static final double CONNECTIVITY_PROB = 0.5;
+	public static final double LOAD = 0.4;
+	
+	@Param({ "5x3", "16x8", "64x16", "256x64", "1024x256" })
+	public String topology;
+	
+	@Param({ "random-single", "round-robin-single", "lcq-single", "random", "aslcq", "lcsf-lcq", "max-weight-greedy", "max-weight" })
+	public String policy;
+	
+	@Param({ "true", "false" })
+	public boolean delays;
+	
+	private Simulator simulator;
+	private TrafficGenerator traffic;
+	private ConnectivityMatrix slotConnectivity;
+	private long[] slotArrivals;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		Topology t = Topology.parse(this.topology);
+		SchedulingPolicy schedulingPolicy = SchedulingPolicies.forName(this.policy);
+		this.simulator = new Simulator(t.numberOfQueues, t.numberOfServers, 42L);
+		this.simulator.setSchedulingPolicy(schedulingPolicy);
+		this.simulator.setDelayTracking(this.delays);
+		this.simulator.refreshSimulation();
+		this.traffic = new TrafficGenerator(t.numberOfQueues, t.numberOfServers, CONNECTIVITY_PROB, arrivalProb(t, schedulingPolicy), 0.1, 0.1, new XoshiroRandomSource(7L));
+		this.slotConnectivity = new ConnectivityMatrix(t.numberOfQueues, t.numberOfServers);
+		this.slotArrivals = new long[ConnectivityMatrix.wordsFor(t.numberOfQueues)];
+	}
+	
+	// Keeps every topology at the same fraction of its service capacity so queues stay bounded
+	static double arrivalProb(Topology t, SchedulingPolicy schedulingPolicy) {
+		double capacity = schedulingPolicy.getName().endsWith("-single") ? 1 : t.numberOfServers * CONNECTIVITY_PROB;
+		// The correlated generator used with several servers arrives at twice the nominal rate
+		double rateFactor = t.numberOfServers > 1 ? 2 : 1;
+		return LOAD * capacity / (t.numberOfQueues * rateFactor);
+	}
+	
+	@Benchmark
+	public void slot() {
+		this.traffic.nextConnectivity(this.slotConnectivity);
+		this.traffic.nextArrivals(this.slotArrivals);
+		this.simulator.runTimeSlot(this.slotConnectivity, this.slotArrivals);
+	}
+}
@@ -0,0 +1,20 @@
+package simproject.bench;
+
+/**
+ * Parses the "queues x servers" benchmark parameter.
+ */
+final class Topology {
+	
+	final int numberOfQueues;
+	final int numberOfServers;
+	
+	private Topology(int noQueues, int noServers) {
+		this.numberOfQueues = noQueues;
+		this.numberOfServers = noServers;
+	}
+	
+	static Topology parse(String topology) {
+		String[] parts = topology.split("x");
+		return new Topology(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+	}
+}
@@ -0,0 +1,74 @@
+package simproject.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import simproject.ConnectivityMatrix;
+import simproject.Simulator;
+import simproject.SlotKernels;
+import simproject.TrafficGenerator;
+import simproject.XoshiroRandomSource;
+
+/**
+ * Per-slot cost of the policy independent phases: updateConnectivities and
+ * arrival generation. The kernel parameter picks the SlotKernel behind
+ * nextConnectivity and generatePackets; the forked JVM gets the Vector API
+ * module so that the vector kernel is really measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+@State(Scope.Thread)
+public class TrafficBenchmark {
+	
+	@Param({ "5x3", "16x8", "64x16", "256x64", "1024x256" })
+	public String topology;
+	
+	@Param({ "scalar", "vector" })
+	public String kernel;
+	
+	private Simulator simulator;
+	private TrafficGenerator traffic;
+	private ConnectivityMatrix connectivity;
+	private long[] slotArrivals;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		Topology t = Topology.parse(this.topology);
+		this.simulator = new Simulator(t.numberOfQueues, t.numberOfServers, 42L);
+		this.traffic = new TrafficGenerator(t.numberOfQueues, t.numberOfServers, SlotBenchmark.CONNECTIVITY_PROB, 0.1, 0.1, 0.1, new XoshiroRandomSource(7L));
+		this.traffic.setSlotKernel(SlotKernels.create(this.kernel));
+		this.connectivity = new ConnectivityMatrix(t.numberOfQueues, t.numberOfServers);
+		this.slotArrivals = new long[ConnectivityMatrix.wordsFor(t.numberOfQueues)];
+	}
+	
+	@Benchmark
+	public void updateConnectivities() {
+		this.simulator.updateConnectivities(SlotBenchmark.CONNECTIVITY_PROB);
+	}
+	
+	@Benchmark
+	public ConnectivityMatrix nextConnectivity() {
+		this.traffic.nextConnectivity(this.connectivity);
+		return this.connectivity;
+	}
+	
+	@Benchmark
+	public int generatePackets() {
+		return this.traffic.nextArrivals(this.slotArrivals);
+	}
+}
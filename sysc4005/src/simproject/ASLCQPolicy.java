@@ -0,0 +1,16 @@
+package simproject;
+
+public class ASLCQPolicy implements SchedulingPolicy {
+	
+	public static final String NAME = "aslcq";
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public void schedule(Simulator simulator) {
+		simulator.scheduleASLCQ();
+	}
+}
@@ -0,0 +1,725 @@
+package simproject;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Structure-of-arrays version of Simulator for large topologies. Queue
+ * lengths, connection counts, busy flags and occupancy sums live in parallel
+ * primitive arrays and bitsets instead of SimQueue and SimServer objects, so
+ * the per-slot loops are flat array walks the JIT can unroll and vectorize.
+ * It draws random numbers in exactly the same order as Simulator, so both give
+ * the same statistics for the same seed and policy. Per-packet delays are not
+ * tracked.
+ *
+ * With idle skipping on, a slot that starts with every queue empty only draws
+ * its arrivals: connectivity, sorting and scheduling are skipped, and the
+ * clock moves straight on to the next arrival. Results are then equal in
+ * distribution to Simulator but no longer bit for bit, because the skipped
+ * connectivity and scheduling draws are not consumed. The arrival chain itself
+ * is still stepped every slot, since its correlation across queues and slots
+ * is what drives the occupancy.
+ *
+ * With worker threads set, runSimulation draws PartitionedTraffic and shares
+ * its blocks of queues out over the workers. Connectivity, connection counts,
+ * occupancy and arrivals run in parallel for each block; a Phaser separates
+ * them from the scheduling step, which runs on one thread when the phase
+ * advances, so the servers need no further coordination. The result is the
+ * same for any number of workers, and the same as
+ * runSimulation(times, TrafficSource) given the same PartitionedTraffic.
+ * Idle skipping does not apply to these runs.
+ */
+public class ArraySimulator implements SimulationEngine {
+	
+	private static final int RANDOM_SINGLE = 0;
+	private static final int ROUND_ROBIN_SINGLE = 1;
+	private static final int LCQ_SINGLE = 2;
+	private static final int RANDOM = 3;
+	private static final int ASLCQ = 4;
+	private static final int LCSF_LCQ = 5;
+	private static final int MAX_WEIGHT_GREEDY = 6;
+	private static final int MAX_WEIGHT = 7;
+	
+	private int numberOfQueues;
+	private int numberOfServers;
+	private RandomSource random;
+	private SchedulingPolicy schedulingPolicy;
+	private int policyKind;
+	private SlotKernel slotKernel;
+	private int trafficBlockSlots;
+	private boolean trafficProducer;
+	private boolean perQueueArrivals;
+	private AtomicBoolean cancellation;
+	private int workerThreads;
+	private ConnectivityMatrix connectivity;
+	private int[] queueLengths;
+	private long[] occupancySums;
+	private ConnectionOrder queueOrder;
+	private ConnectionOrder serverOrder;
+	private BacklogMatching backlogMatching;
+	private ServiceRates serviceRates;
+	// Counts are only taken when a policy asks for an order
+	private boolean queueCountsStale;
+	private boolean serverCountsStale;
+	private long[] busyServers;
+	private long[] selectedServers;
+	private long[] arrivalMask;
+	private int roundRobinQueueIndex;
+	private long currentTimeSlot;
+	private long recordedSlots;
+	private long totalPacketsArrived;
+	private long totalPacketsAttempted;
+	private long packetsServed;
+	private long queuedPackets;
+	private boolean idleSkipping;
+	private BatchMeans occupancyBatchMeans;
+	private double lastSlotOccupancy;
+	private boolean warmupDetection;
+	private int maxWarmupSlots;
+	private long warmupSlots;
+	private WarmupDetector warmupDetector;
+	
+	public ArraySimulator(int noQueues, int noServers, RandomSource random) {
+		this.numberOfQueues = noQueues;
+		this.numberOfServers = noServers;
+		this.random = random;
+		this.connectivity = new ConnectivityMatrix(noQueues, noServers);
+		this.queueLengths = new int[noQueues];
+		this.occupancySums = new long[noQueues];
+		this.queueOrder = new ConnectionOrder(noQueues, noServers);
+		this.serverOrder = new ConnectionOrder(noServers, noQueues);
+		this.backlogMatching = new BacklogMatching(noQueues, noServers);
+		this.serviceRates = new ServiceRates(noQueues, noServers);
+		this.backlogMatching.setServiceRates(this.serviceRates);
+		this.busyServers = new long[ConnectivityMatrix.wordsFor(noServers)];
+		this.selectedServers = new long[ConnectivityMatrix.wordsFor(noServers)];
+		this.arrivalMask = new long[ConnectivityMatrix.wordsFor(noQueues)];
+		this.roundRobinQueueIndex = 0;
+		this.occupancyBatchMeans = new BatchMeans(Simulator.DEFAULT_OCCUPANCY_BATCH_SIZE);
+		this.warmupDetection = false;
+		this.maxWarmupSlots = Simulator.DEFAULT_MAX_WARMUP_SLOTS;
+		this.warmupDetector = new WarmupDetector();
+		this.setSchedulingPolicy(SchedulingPolicies.getDefault());
+		this.slotKernel = SlotKernels.getDefault();
+		this.refreshSimulation();
+	}
+	
+	public ArraySimulator(int noQueues, int noServers, long seed) {
+		this(noQueues, noServers, new XoshiroRandomSource(seed));
+	}
+	
+	/**
+	 * @throws IllegalArgumentException if the policy is not one of the built-in ones
+	 */
+	@Override
+	public void setSchedulingPolicy(SchedulingPolicy schedulingPolicy) {
+		switch (schedulingPolicy.getName()) {
+		case RandomSingleServerPolicy.NAME:
+			this.policyKind = RANDOM_SINGLE;
+			break;
+		case RoundRobinSingleServerPolicy.NAME:
+			this.policyKind = ROUND_ROBIN_SINGLE;
+			break;
+		case LCQSingleServerPolicy.NAME:
+			this.policyKind = LCQ_SINGLE;
+			break;
+		case RandomPolicy.NAME:
+			this.policyKind = RANDOM;
+			break;
+		case ASLCQPolicy.NAME:
+			this.policyKind = ASLCQ;
+			break;
+		case LCSFLCQPolicy.NAME:
+			this.policyKind = LCSF_LCQ;
+			break;
+		case MaxWeightGreedyPolicy.NAME:
+			this.policyKind = MAX_WEIGHT_GREEDY;
+			break;
+		case MaxWeightPolicy.NAME:
+			this.policyKind = MAX_WEIGHT;
+			break;
+		default:
+			throw new IllegalArgumentException("Policy " + schedulingPolicy.getName() + " is not supported by the array engine");
+		}
+		this.schedulingPolicy = schedulingPolicy;
+	}
+	
+	public void refreshSimulation() {
+		this.currentTimeSlot = 0;
+		this.warmupSlots = 0;
+		this.connectivity.clear();
+		for (int w = 0; w < this.busyServers.length; w++)
+			this.busyServers[w] = 0;
+		for (int q = 0; q < this.numberOfQueues; q++)
+			this.queueLengths[q] = 0;
+		this.packetsServed = 0;
+		this.queuedPackets = 0;
+		this.clearStatistics();
+		this.refreshConnectionCounts();
+	}
+	
+	public void clearStatistics() {
+		for (int q = 0; q < this.numberOfQueues; q++)
+			this.occupancySums[q] = 0;
+		this.occupancyBatchMeans.reset();
+		this.recordedSlots = 0;
+		this.totalPacketsArrived = 0;
+		this.totalPacketsAttempted = 0;
+	}
+	
+	private void refreshConnectionCounts() {
+		this.queueCountsStale = true;
+		this.serverCountsStale = true;
+	}
+	
+	private int[] queueOrder() {
+		if (this.queueCountsStale) {
+			int[] counts = this.queueOrder.getCounts();
+			for (int q = 0; q < this.numberOfQueues; q++)
+				counts[q] = this.connectivity.countQueueConnections(q);
+			this.queueOrder.invalidate();
+			this.queueCountsStale = false;
+		}
+		return this.queueOrder.getOrder();
+	}
+	
+	private int[] serverOrder() {
+		if (this.serverCountsStale) {
+			int[] counts = this.serverOrder.getCounts();
+			for (int s = 0; s < this.numberOfServers; s++)
+				counts[s] = 0;
+			this.connectivity.countServerConnections(counts);
+			this.serverOrder.invalidate();
+			this.serverCountsStale = false;
+		}
+		return this.serverOrder.getOrder();
+	}
+	
+	/**
+	 * Draws the traffic from a stream split off this simulator's source, as
+	 * Simulator does, and leaves the rest of the source to the policy. With
+	 * worker threads every block of queues gets its own split of that stream.
+	 */
+	@Override
+	public void runSimulation(int times, double connectivityProb, double packetArrivalProb, double aBound, double bBound) {
+		if (this.workerThreads > 0) {
+			this.runPartitioned(times, new PartitionedTraffic(this.numberOfQueues, this.numberOfServers, connectivityProb, packetArrivalProb, aBound, bBound, this.perQueueArrivals, this.random.split()));
+			return;
+		}
+		TrafficGenerator traffic = new TrafficGenerator(this.numberOfQueues, this.numberOfServers, connectivityProb, packetArrivalProb, aBound, bBound, this.random.split());
+		traffic.setSlotKernel(this.slotKernel);
+		traffic.setPerQueueArrivals(this.perQueueArrivals);
+		if (this.trafficBlockSlots > 0) {
+			try (BatchedTrafficSource batched = new BatchedTrafficSource(traffic, this.trafficBlockSlots, this.trafficProducer)) {
+				this.runSimulation(times, batched);
+			}
+		} else {
+			this.runSimulation(times, traffic);
+		}
+	}
+	
+	public void runSimulation(int times, TrafficSource traffic) {
+		this.refreshSimulation();
+		traffic.nextArrivals(this.arrivalMask);
+		this.addArrivals(this.arrivalMask);
+		if (this.warmupDetection)
+			this.runWarmup(traffic);
+		for (int timeSlot = 1; timeSlot <= times; timeSlot++)
+			this.runTimeSlot(traffic);
+	}
+	
+	private void runTimeSlot(TrafficSource traffic) {
+		this.currentTimeSlot++;
+		if (this.currentTimeSlot % Simulator.CANCEL_CHECK_INTERVAL == 0)
+			Simulator.checkCancelled(this.cancellation, Thread.currentThread());
+		if (this.idleSkipping && this.queuedPackets == 0) {
+			this.runIdleSlot(traffic);
+			return;
+		}
+		traffic.nextConnectivity(this.connectivity);
+		this.refreshConnectionCounts();
+		this.schedule();
+		this.recordOccupancies();
+		traffic.nextArrivals(this.arrivalMask);
+		this.addArrivals(this.arrivalMask);
+		for (int w = 0; w < this.busyServers.length; w++)
+			this.busyServers[w] = 0;
+	}
+	
+	/**
+	 * A slot that starts empty serves nothing, so only the round-robin pointer,
+	 * the zero occupancy and the arrivals at its end need updating.
+	 */
+	private void runIdleSlot(TrafficSource traffic) {
+		traffic.skipConnectivity();
+		if (this.policyKind == ROUND_ROBIN_SINGLE)
+			this.roundRobinQueueIndex = (this.roundRobinQueueIndex + 1) % this.numberOfQueues;
+		this.lastSlotOccupancy = 0;
+		this.occupancyBatchMeans.add(0);
+		this.recordedSlots++;
+		traffic.nextArrivals(this.arrivalMask);
+		this.addArrivals(this.arrivalMask);
+	}
+	
+	/**
+	 * Discards every warm-up slot, as Simulator does; see its runWarmup.
+	 */
+	private void runWarmup(TrafficSource traffic) {
+		this.warmupDetector.reset();
+		while (this.currentTimeSlot < this.maxWarmupSlots) {
+			this.runTimeSlot(traffic);
+			this.warmupDetector.add(this.lastSlotOccupancy);
+			if ((this.currentTimeSlot % Simulator.WARMUP_CHECK_INTERVAL == 0) && this.warmupDetector.isSteady())
+				break;
+		}
+		this.warmupSlots = this.currentTimeSlot;
+		this.clearStatistics();
+	}
+	
+	/**
+	 * Runs the same slots as runSimulation(times, traffic) on up to
+	 * workerThreads threads, one of them the calling thread.
+	 */
+	public void runPartitioned(int times, PartitionedTraffic traffic) {
+		this.refreshSimulation();
+		traffic.nextArrivals(this.arrivalMask);
+		this.addArrivals(this.arrivalMask);
+		int workers = Math.max(1, Math.min(this.workerThreads, traffic.getNumberOfBlocks()));
+		PartitionedRun run = new PartitionedRun(times, traffic, workers);
+		if (run.isTerminated())
+			return;
+		Thread[] threads = new Thread[workers - 1];
+		for (int w = 1; w < workers; w++) {
+			final int worker = w;
+			threads[w - 1] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					run.work(worker);
+				}
+			}, "simulation-worker-" + w);
+			threads[w - 1].setDaemon(true);
+			threads[w - 1].start();
+		}
+		run.work(0);
+		try {
+			for (Thread thread : threads)
+				thread.join();
+		} catch (InterruptedException e) {
+			run.forceTermination();
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Simulation cancelled");
+		}
+		if (run.failure instanceof CancellationException)
+			throw (CancellationException) run.failure;
+		if (run.failure != null)
+			throw new IllegalStateException("Simulation worker failed", run.failure);
+	}
+	
+	/**
+	 * One partitioned run. Every slot has two phases: the workers draw
+	 * connectivity and count connections for their blocks, the last to arrive
+	 * schedules; then they record occupancy and add arrivals for their blocks,
+	 * and the last to arrive totals the slot and handles warm-up and the end
+	 * of the run.
+	 */
+	private class PartitionedRun extends Phaser {
+		
+		private PartitionedTraffic traffic;
+		private int workers;
+		private boolean queueCounts;
+		private boolean serverCounts;
+		private int[][] workerServerCounts;
+		private long[] workerOccupancies;
+		private int[] workerArrivals;
+		private boolean warmingUp;
+		private int remainingSlots;
+		private volatile Throwable failure;
+		private Thread caller = Thread.currentThread();
+		
+		private PartitionedRun(int times, PartitionedTraffic traffic, int workers) {
+			super(workers);
+			this.traffic = traffic;
+			this.workers = workers;
+			this.queueCounts = policyKind == LCQ_SINGLE || policyKind == ASLCQ || policyKind == LCSF_LCQ;
+			this.serverCounts = policyKind == LCSF_LCQ;
+			this.workerServerCounts = new int[workers][this.serverCounts ? numberOfServers : 0];
+			this.workerOccupancies = new long[workers];
+			this.workerArrivals = new int[workers];
+			this.remainingSlots = times;
+			this.warmingUp = warmupDetection;
+			if (this.warmingUp) {
+				warmupDetector.reset();
+				this.endWarmupIfDone(false);
+			}
+			if (!this.warmingUp && this.remainingSlots <= 0)
+				this.forceTermination();
+		}
+		
+		private int firstBlock(int worker) {
+			return (int) ((long) worker * this.traffic.getNumberOfBlocks() / this.workers);
+		}
+		
+		private void work(int worker) {
+			int fromBlock = this.firstBlock(worker);
+			int toBlock = this.firstBlock(worker + 1);
+			int fromQueue = this.traffic.getBlockStart(fromBlock);
+			int toQueue = toBlock == this.traffic.getNumberOfBlocks() ? numberOfQueues : this.traffic.getBlockStart(toBlock);
+			try {
+				while (true) {
+					this.traffic.nextConnectivity(connectivity, fromBlock, toBlock);
+					if (this.queueCounts) {
+						int[] counts = queueOrder.getCounts();
+						for (int q = fromQueue; q < toQueue; q++)
+							counts[q] = connectivity.countQueueConnections(q);
+					}
+					if (this.serverCounts) {
+						int[] counts = this.workerServerCounts[worker];
+						for (int s = 0; s < numberOfServers; s++)
+							counts[s] = 0;
+						connectivity.countServerConnections(counts, fromQueue, toQueue);
+					}
+					if (this.arriveAndAwaitAdvance() < 0)
+						break;
+					
+					long occupancy = 0;
+					for (int q = fromQueue; q < toQueue; q++) {
+						occupancySums[q] += queueLengths[q];
+						occupancy += queueLengths[q];
+					}
+					this.workerOccupancies[worker] = occupancy;
+					this.workerArrivals[worker] = this.traffic.nextArrivals(arrivalMask, fromBlock, toBlock);
+					for (int w = fromQueue >>> 6; w < ConnectivityMatrix.wordsFor(toQueue); w++) {
+						long arrivals = arrivalMask[w];
+						while (arrivals != 0) {
+							queueLengths[(w << 6) + Long.numberOfTrailingZeros(arrivals)]++;
+							arrivals &= arrivals - 1;
+						}
+					}
+					if (this.arriveAndAwaitAdvance() < 0)
+						break;
+				}
+			} catch (RuntimeException | Error e) {
+				if (this.failure == null)
+					this.failure = e;
+				this.forceTermination();
+			}
+		}
+		
+		@Override
+		protected boolean onAdvance(int phase, int registeredParties) {
+			try {
+				if ((phase & 1) == 0) {
+					this.schedule();
+					return false;
+				}
+				return this.finishSlot();
+			} catch (RuntimeException | Error e) {
+				this.failure = e;
+				return true;
+			}
+		}
+		
+		private void schedule() {
+			currentTimeSlot++;
+			// the last party to arrive runs this, which may be a worker
+			if (currentTimeSlot % Simulator.CANCEL_CHECK_INTERVAL == 0)
+				Simulator.checkCancelled(cancellation, this.caller);
+			// Counts were taken by the workers, so only the orders are stale
+			if (this.queueCounts) {
+				queueOrder.invalidate();
+				queueCountsStale = false;
+			} else {
+				queueCountsStale = true;
+			}
+			if (this.serverCounts) {
+				int[] counts = serverOrder.getCounts();
+				for (int s = 0; s < numberOfServers; s++)
+					counts[s] = 0;
+				for (int w = 0; w < this.workers; w++) {
+					for (int s = 0; s < numberOfServers; s++)
+						counts[s] += this.workerServerCounts[w][s];
+				}
+				serverOrder.invalidate();
+				serverCountsStale = false;
+			} else {
+				serverCountsStale = true;
+			}
+			ArraySimulator.this.schedule();
+		}
+		
+		private boolean finishSlot() {
+			long slotOccupancy = 0;
+			int arrived = 0;
+			for (int w = 0; w < this.workers; w++) {
+				slotOccupancy += this.workerOccupancies[w];
+				arrived += this.workerArrivals[w];
+			}
+			lastSlotOccupancy = ((double) slotOccupancy) / numberOfQueues;
+			occupancyBatchMeans.add(lastSlotOccupancy);
+			recordedSlots++;
+			totalPacketsAttempted += numberOfQueues;
+			totalPacketsArrived += arrived;
+			queuedPackets += arrived;
+			for (int w = 0; w < busyServers.length; w++)
+				busyServers[w] = 0;
+			if (this.warmingUp) {
+				warmupDetector.add(lastSlotOccupancy);
+				this.endWarmupIfDone(true);
+				return !this.warmingUp && this.remainingSlots <= 0;
+			}
+			return --this.remainingSlots <= 0;
+		}
+		
+		// Same stopping rule as runWarmup
+		private void endWarmupIfDone(boolean slotRun) {
+			boolean steady = slotRun && currentTimeSlot % Simulator.WARMUP_CHECK_INTERVAL == 0 && warmupDetector.isSteady();
+			if (steady || currentTimeSlot >= maxWarmupSlots) {
+				warmupSlots = currentTimeSlot;
+				clearStatistics();
+				this.warmingUp = false;
+			}
+		}
+	}
+	
+	public void addArrivals(long[] arrivalMask) {
+		this.totalPacketsAttempted += this.numberOfQueues;
+		for (int w = 0; w < arrivalMask.length; w++) {
+			long arrivals = arrivalMask[w];
+			this.totalPacketsArrived += Long.bitCount(arrivals);
+			this.queuedPackets += Long.bitCount(arrivals);
+			while (arrivals != 0) {
+				this.queueLengths[(w << 6) + Long.numberOfTrailingZeros(arrivals)]++;
+				arrivals &= arrivals - 1;
+			}
+		}
+	}
+	
+	private void recordOccupancies() {
+		long slotOccupancy = 0;
+		for (int q = 0; q < this.numberOfQueues; q++) {
+			this.occupancySums[q] += this.queueLengths[q];
+			slotOccupancy += this.queueLengths[q];
+		}
+		this.lastSlotOccupancy = ((double) slotOccupancy) / this.numberOfQueues;
+		this.occupancyBatchMeans.add(this.lastSlotOccupancy);
+		this.recordedSlots++;
+	}
+	
+	private void schedule() {
+		switch (this.policyKind) {
+		case RANDOM_SINGLE:
+			this.selectRandomServers();
+			this.serveFromSelectedServers(this.random.nextInt(this.numberOfQueues));
+			break;
+		case ROUND_ROBIN_SINGLE:
+			this.roundRobinQueueIndex = (this.roundRobinQueueIndex + 1) % this.numberOfQueues;
+			if (this.connectivity.isConnected(this.roundRobinQueueIndex, 0) && this.queueLengths[this.roundRobinQueueIndex] > 0)
+				this.serve(this.roundRobinQueueIndex, 0);
+			break;
+		case LCQ_SINGLE:
+			int[] lcqOrder = this.queueOrder();
+			for (int i = 0; i < this.numberOfQueues; i++) {
+				int q = lcqOrder[i];
+				if (this.connectivity.isConnected(q, 0) && this.queueLengths[q] > 0) {
+					this.serve(q, 0);
+					break;
+				}
+			}
+			break;
+		case RANDOM:
+			int randomFree = this.selectRandomServers();
+			for (int q = 0; q < this.numberOfQueues && randomFree > 0; q++)
+				randomFree -= this.serveFromSelectedServers(q);
+			break;
+		case ASLCQ:
+			int aslcqFree = this.selectRandomServers();
+			int[] aslcqOrder = this.queueOrder();
+			for (int i = this.numberOfQueues - 1; i >= 0 && aslcqFree > 0; i--)
+				aslcqFree -= this.serveFromSelectedServers(aslcqOrder[i]);
+			break;
+		case LCSF_LCQ:
+			this.scheduleLCSFLCQ();
+			break;
+		case MAX_WEIGHT_GREEDY:
+		case MAX_WEIGHT:
+			System.arraycopy(this.queueLengths, 0, this.backlogMatching.getBacklogs(), 0, this.numberOfQueues);
+			if (this.policyKind == MAX_WEIGHT)
+				this.backlogMatching.matchExact(this.connectivity);
+			else
+				this.backlogMatching.matchGreedy(this.connectivity);
+			for (int s = 0; s < this.numberOfServers; s++) {
+				int q = this.backlogMatching.getServerQueue(s);
+				if (q >= 0)
+					this.serve(q, s);
+			}
+			break;
+		}
+	}
+	
+	private void scheduleLCSFLCQ() {
+		int serversFree = this.numberOfServers;
+		int[] queueOrder = this.queueOrder();
+		int[] serverOrder = this.serverOrder();
+		for (int i = this.numberOfQueues - 1; i >= 0 && serversFree > 0; i--) {
+			int q = queueOrder[i];
+			for (int j = 0; j < this.numberOfServers && this.queueLengths[q] > 0; j++) {
+				int s = serverOrder[j];
+				if (this.connectivity.isConnected(q, s) && (this.busyServers[s >>> 6] & (1L << s)) == 0) {
+					this.serve(q, s);
+					serversFree--;
+				}
+			}
+		}
+	}
+	
+	private int selectRandomServers() {
+		for (int w = 0; w < this.selectedServers.length; w++)
+			this.selectedServers[w] = 0;
+		int chosen = 0;
+		for (int i = 0; i < this.numberOfServers; i++) {
+			int server = this.random.nextInt(this.numberOfServers);
+			long bit = 1L << server;
+			if ((this.selectedServers[server >>> 6] & bit) == 0) {
+				this.selectedServers[server >>> 6] |= bit;
+				chosen++;
+			}
+		}
+		return chosen;
+	}
+	
+	private int serveFromSelectedServers(int q) {
+		int served = 0;
+		for (int w = 0; w < this.selectedServers.length && this.queueLengths[q] > 0; w++) {
+			long eligible = this.connectivity.getWord(q, w) & this.selectedServers[w] & ~this.busyServers[w];
+			while (eligible != 0 && this.queueLengths[q] > 0) {
+				this.serve(q, (w << 6) + Long.numberOfTrailingZeros(eligible));
+				eligible &= eligible - 1;
+				served++;
+			}
+		}
+		return served;
+	}
+	
+	private void serve(int q, int s) {
+		int served = Math.min(this.serviceRates.getQuota(q, s), this.queueLengths[q]);
+		this.queueLengths[q] -= served;
+		this.queuedPackets -= served;
+		this.busyServers[s >>> 6] |= (1L << s);
+		this.packetsServed += served;
+	}
+	
+	/**
+	 * Same arithmetic as Simulator.calculateAvgOccupancy, so results match bit for bit.
+	 */
+	@Override
+	public double calculateAvgOccupancy(int times) {
+		double netAvgOccupancy = 0;
+		for (int q = 0; q < this.numberOfQueues; q++)
+			netAvgOccupancy += ((double) this.occupancySums[q]) / ((double) times);
+		return (netAvgOccupancy / this.numberOfQueues);
+	}
+	
+	@Override
+	public double calculateOccupancyHalfWidth(double confidence) {
+		return this.occupancyBatchMeans.getHalfWidth(confidence);
+	}
+	
+	@Override
+	public void setWarmupDetection(boolean warmupDetection) {
+		this.warmupDetection = warmupDetection;
+	}
+	
+	@Override
+	public void setServerCapacity(int serverIndex, int capacity) {
+		this.serviceRates.setCapacity(serverIndex, capacity);
+	}
+	
+	@Override
+	public void setServiceRate(int queueIndex, int serverIndex, int rate) {
+		this.serviceRates.setRate(queueIndex, serverIndex, rate);
+	}
+	
+	@Override
+	public void setSlotKernel(SlotKernel slotKernel) {
+		this.slotKernel = slotKernel;
+	}
+	
+	@Override
+	public void setTrafficBatching(int blockSlots, boolean producerThread) {
+		this.trafficBlockSlots = blockSlots;
+		this.trafficProducer = producerThread;
+	}
+	
+	@Override
+	public void setPerQueueArrivals(boolean perQueueArrivals) {
+		this.perQueueArrivals = perQueueArrivals;
+	}
+	
+	@Override
+	public void setCancellation(AtomicBoolean cancelled) {
+		this.cancellation = cancelled;
+	}
+	
+	/**
+	 * Runs runSimulation on PartitionedTraffic with this many threads. Zero,
+	 * the default, keeps the sequential TrafficGenerator path.
+	 */
+	public void setWorkerThreads(int workerThreads) {
+		this.workerThreads = workerThreads;
+	}
+	
+	public int getWorkerThreads() {
+		return workerThreads;
+	}
+	
+	public void setIdleSkipping(boolean idleSkipping) {
+		this.idleSkipping = idleSkipping;
+	}
+	
+	public boolean isIdleSkipping() {
+		return idleSkipping;
+	}
+	
+	public void setMaxWarmupSlots(int maxWarmupSlots) {
+		this.maxWarmupSlots = maxWarmupSlots;
+	}
+	
+	public long getWarmupSlots() {
+		return warmupSlots;
+	}
+
+	@Override
+	public long getTotalPacketsArrived() {
+		return totalPacketsArrived;
+	}
+
+	@Override
+	public long getTotalPacketsAttempted() {
+		return totalPacketsAttempted;
+	}
+	
+	public long getPacketsServed() {
+		return packetsServed;
+	}
+	
+	public SchedulingPolicy getSchedulingPolicy() {
+		return schedulingPolicy;
+	}
+	
+	public int[] getQueueLengths() {
+		return queueLengths;
+	}
+	
+	public long getCurrentTimeSlot() {
+		return currentTimeSlot;
+	}
+
+	public int getNumberOfQueues() {
+		return numberOfQueues;
+	}
+
+	public int getNumberOfServers() {
+		return numberOfServers;
+	}
+}
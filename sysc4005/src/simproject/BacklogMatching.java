@@ -0,0 +1,203 @@
+package simproject;
+
+/**
+ * Assigns the servers of one slot to queues so as to maximise the backlog
+ * served, where serving a packet of queue q is worth q's backlog and every
+ * server serves at most one packet. Queues are visited in decreasing order
+ * of backlog, popped from a heap so that the order stops being built once
+ * every server is taken. All scratch arrays are allocated up front.
+ *
+ * matchGreedy gives each queue the free servers it is connected to. matchExact
+ * also moves already assigned servers along augmenting paths to make room.
+ * Since a packet's weight depends only on its queue, the achievable sets of
+ * served packets form a transversal matroid, and taking queues by decreasing
+ * weight with augmentation gives a maximum weight assignment.
+ *
+ * With ServiceRates above one packet a server takes its whole quota from the
+ * queue it is given, and a queue stops taking servers once they cover its
+ * backlog. Moving a server would then change how much each queue gets, so
+ * matchExact only augments while every quota is one and is greedy otherwise.
+ */
+public class BacklogMatching {
+	
+	private int numberOfQueues;
+	private int numberOfServers;
+	private int wordsPerQueue;
+	private int[] backlogs;
+	private ServiceRates serviceRates;
+	private int[] serverQueues;
+	private long[] matchedServers;
+	private long[] heap;
+	private int heapSize;
+	// Iterative depth-first search state for augmenting paths
+	private long[] visitedServers;
+	private int[] pathQueues;
+	private int[] pathServers;
+	private int[] pathWords;
+	private long[] pathBits;
+	
+	public BacklogMatching(int noQueues, int noServers) {
+		this.numberOfQueues = noQueues;
+		this.numberOfServers = noServers;
+		this.wordsPerQueue = ConnectivityMatrix.wordsFor(noServers);
+		this.backlogs = new int[noQueues];
+		this.serverQueues = new int[noServers];
+		this.matchedServers = new long[this.wordsPerQueue];
+		this.heap = new long[noQueues];
+		this.visitedServers = new long[this.wordsPerQueue];
+		this.pathQueues = new int[noServers + 1];
+		this.pathServers = new int[noServers + 1];
+		this.pathWords = new int[noServers + 1];
+		this.pathBits = new long[noServers + 1];
+	}
+	
+	/**
+	 * Returns the backlog of every queue for the caller to fill in before
+	 * matching.
+	 */
+	public int[] getBacklogs() {
+		return backlogs;
+	}
+	
+	/**
+	 * Sets the per-slot quotas to match against; null means one packet each.
+	 */
+	public void setServiceRates(ServiceRates serviceRates) {
+		this.serviceRates = serviceRates;
+	}
+	
+	/**
+	 * Returns the queue assigned to server s by the last match, or -1.
+	 */
+	public int getServerQueue(int s) {
+		return serverQueues[s];
+	}
+	
+	public int matchGreedy(ConnectivityMatrix connectivity) {
+		return this.match(connectivity, false);
+	}
+	
+	public int matchExact(ConnectivityMatrix connectivity) {
+		return this.match(connectivity, true);
+	}
+	
+	private int match(ConnectivityMatrix connectivity, boolean augment) {
+		for (int s = 0; s < this.numberOfServers; s++)
+			this.serverQueues[s] = -1;
+		for (int w = 0; w < this.wordsPerQueue; w++)
+			this.matchedServers[w] = 0;
+		boolean unit = (this.serviceRates == null) || this.serviceRates.isUnit();
+		augment = augment && unit;
+		this.buildHeap();
+		int matched = 0;
+		while (matched < this.numberOfServers && this.heapSize > 0) {
+			int q = this.popQueue();
+			int remaining = this.backlogs[q];
+			while (remaining > 0 && matched < this.numberOfServers) {
+				int s = this.takeFreeServer(connectivity, q);
+				if (s >= 0)
+					remaining -= unit ? 1 : this.serviceRates.getQuota(q, s);
+				else if (augment && this.augment(connectivity, q))
+					remaining--;
+				else
+					break;
+				matched++;
+			}
+		}
+		return matched;
+	}
+	
+	/**
+	 * Keys sort by backlog, then by lower queue index.
+	 */
+	private void buildHeap() {
+		this.heapSize = 0;
+		for (int q = 0; q < this.numberOfQueues; q++) {
+			if (this.backlogs[q] > 0)
+				this.heap[this.heapSize++] = (((long) this.backlogs[q]) << 32) | (Integer.MAX_VALUE - q);
+		}
+		for (int i = (this.heapSize >>> 1) - 1; i >= 0; i--)
+			this.siftDown(i);
+	}
+	
+	private int popQueue() {
+		long top = this.heap[0];
+		this.heap[0] = this.heap[--this.heapSize];
+		this.siftDown(0);
+		return Integer.MAX_VALUE - (int) top;
+	}
+	
+	private void siftDown(int i) {
+		long key = this.heap[i];
+		int child;
+		while ((child = 2 * i + 1) < this.heapSize) {
+			if (child + 1 < this.heapSize && this.heap[child + 1] > this.heap[child])
+				child++;
+			if (this.heap[child] <= key)
+				break;
+			this.heap[i] = this.heap[child];
+			i = child;
+		}
+		this.heap[i] = key;
+	}
+	
+	/**
+	 * Returns the free server given to q, or -1 if q has none.
+	 */
+	private int takeFreeServer(ConnectivityMatrix connectivity, int q) {
+		for (int w = 0; w < this.wordsPerQueue; w++) {
+			long free = connectivity.getWord(q, w) & ~this.matchedServers[w];
+			if (free != 0) {
+				int s = (w << 6) + Long.numberOfTrailingZeros(free);
+				this.serverQueues[s] = q;
+				this.matchedServers[w] |= (free & -free);
+				return s;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Looks for a path root, s0, owner(s0), s1, ..., sd with sd free, and
+	 * shifts every server on it to the queue before it. Each server is
+	 * visited at most once per search.
+	 */
+	private boolean augment(ConnectivityMatrix connectivity, int root) {
+		for (int w = 0; w < this.wordsPerQueue; w++)
+			this.visitedServers[w] = 0;
+		int depth = 0;
+		this.startLevel(connectivity, 0, root);
+		while (depth >= 0) {
+			int q = this.pathQueues[depth];
+			while (this.pathBits[depth] == 0 && ++this.pathWords[depth] < this.wordsPerQueue)
+				this.pathBits[depth] = connectivity.getWord(q, this.pathWords[depth]) & ~this.visitedServers[this.pathWords[depth]];
+			if (this.pathBits[depth] == 0) {
+				depth--;
+				continue;
+			}
+			int w = this.pathWords[depth];
+			long bit = this.pathBits[depth] & -this.pathBits[depth];
+			this.pathBits[depth] ^= bit;
+			if ((this.visitedServers[w] & bit) != 0)
+				continue;
+			this.visitedServers[w] |= bit;
+			int s = (w << 6) + Long.numberOfTrailingZeros(bit);
+			this.pathServers[depth] = s;
+			int owner = this.serverQueues[s];
+			if (owner < 0) {
+				for (int d = depth; d >= 0; d--)
+					this.serverQueues[this.pathServers[d]] = this.pathQueues[d];
+				this.matchedServers[w] |= bit;
+				return true;
+			}
+			this.startLevel(connectivity, ++depth, owner);
+		}
+		return false;
+	}
+	
+	private void startLevel(ConnectivityMatrix connectivity, int depth, int q) {
+		this.pathQueues[depth] = q;
+		this.pathWords[depth] = 0;
+		this.pathBits[depth] = connectivity.getWord(q, 0) & ~this.visitedServers[0];
+	}
+}
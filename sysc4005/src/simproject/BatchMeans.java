@@ -0,0 +1,75 @@
+package simproject;
+
+import java.io.IOException;
+
+/**
+ * Method of batch means for one long run: observations are grouped into
+ * consecutive batches of batchSize and the batch averages are treated as
+ * approximately independent samples for the confidence interval.
+ */
+public class BatchMeans {
+	
+	private int batchSize;
+	private int currentCount;
+	private double currentSum;
+	private OnlineStatistics batchStatistics;
+	
+	public BatchMeans(int batchSize) {
+		if (batchSize <= 0) throw new IllegalArgumentException("Batch size must be positive");
+		this.batchSize = batchSize;
+		this.batchStatistics = new OnlineStatistics();
+		this.reset();
+	}
+	
+	public void reset() {
+		this.currentCount = 0;
+		this.currentSum = 0;
+		this.batchStatistics.reset();
+	}
+	
+	public void add(double x) {
+		this.currentSum += x;
+		this.currentCount++;
+		if (this.currentCount == this.batchSize) {
+			this.batchStatistics.add(this.currentSum / this.batchSize);
+			this.currentSum = 0;
+			this.currentCount = 0;
+		}
+	}
+	
+	public int getBatchSize() {
+		return batchSize;
+	}
+	
+	public long getNumberOfBatches() {
+		return this.batchStatistics.getCount();
+	}
+	
+	/**
+	 * Returns the statistics of the completed batch means. A partial last
+	 * batch is left out.
+	 */
+	public OnlineStatistics getBatchStatistics() {
+		return batchStatistics;
+	}
+	
+	public double getMean() {
+		return this.batchStatistics.getMean();
+	}
+	
+	public double getHalfWidth(double confidence) {
+		return this.batchStatistics.getHalfWidth(confidence);
+	}
+	
+	void writeState(CheckpointWriter out) throws IOException {
+		out.putInt(this.currentCount);
+		out.putDouble(this.currentSum);
+		this.batchStatistics.writeState(out);
+	}
+	
+	void readState(CheckpointReader in) throws IOException {
+		this.currentCount = in.getInt();
+		this.currentSum = in.getDouble();
+		this.batchStatistics.readState(in);
+	}
+}
@@ -0,0 +1,191 @@
+package simproject;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Generates traffic for a block of slots at a time into reusable buffers, so
+ * the simulation loop copies ready-made masks instead of interleaving RNG
+ * calls with scheduling. Blocks are drawn in the order a simulator reads them
+ * (arrivals, then connectivity, slot after slot), so a batched run matches an
+ * unbatched one exactly.
+ *
+ * With a producer thread a second block is filled while the first one is read.
+ * The wrapped generator then belongs to that thread, and the source must be
+ * closed to stop it.
+ */
+public class BatchedTrafficSource implements TrafficSource, AutoCloseable {
+	
+	public static final int DEFAULT_BLOCK_SLOTS = 4096;
+	/** Caps a block for large topologies, where one slot of connectivity alone can take tens of kilobytes. */
+	public static final long MAX_BLOCK_BYTES = 16L << 20;
+	
+	private TrafficGenerator traffic;
+	private int blockSlots;
+	private int connectivityWords;
+	private int arrivalWords;
+	private ConnectivityMatrix slotConnectivity;
+	private long[] slotArrivals;
+	private Block current;
+	private int slot;
+	private boolean arrivalsTaken;
+	private BlockingQueue<Block> freeBlocks;
+	private BlockingQueue<Block> filledBlocks;
+	private Thread producer;
+	
+	/**
+	 * Slot j of a block holds the arrivals read before slot j and the
+	 * connectivity of the slot after them.
+	 */
+	private static class Block {
+		private long[] connectivity;
+		private long[] arrivals;
+		private int[] arrivalCounts;
+		private RuntimeException failure;
+		
+		private Block(int blockSlots, int connectivityWords, int arrivalWords) {
+			this.connectivity = new long[blockSlots * connectivityWords];
+			this.arrivals = new long[blockSlots * arrivalWords];
+			this.arrivalCounts = new int[blockSlots];
+		}
+	}
+	
+	public BatchedTrafficSource(TrafficGenerator traffic, int blockSlots, boolean producerThread) {
+		if (blockSlots < 1)
+			throw new IllegalArgumentException("Block must hold at least one slot");
+		this.traffic = traffic;
+		this.slotConnectivity = new ConnectivityMatrix(traffic.getNumberOfQueues(), traffic.getNumberOfServers());
+		this.slotArrivals = new long[ConnectivityMatrix.wordsFor(traffic.getNumberOfQueues())];
+		this.connectivityWords = this.slotConnectivity.getWords().length;
+		this.arrivalWords = this.slotArrivals.length;
+		long bytesPerSlot = 8L * (this.connectivityWords + this.arrivalWords) + 4;
+		this.blockSlots = (int) Math.max(1, Math.min(blockSlots, MAX_BLOCK_BYTES / bytesPerSlot));
+		this.slot = 0;
+		this.arrivalsTaken = false;
+		
+		if (producerThread) {
+			this.freeBlocks = new ArrayBlockingQueue<Block>(2);
+			this.filledBlocks = new ArrayBlockingQueue<Block>(2);
+			this.freeBlocks.add(new Block(this.blockSlots, this.connectivityWords, this.arrivalWords));
+			this.freeBlocks.add(new Block(this.blockSlots, this.connectivityWords, this.arrivalWords));
+			this.producer = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					produce();
+				}
+			}, "traffic-producer");
+			this.producer.setDaemon(true);
+			this.producer.start();
+			this.current = this.takeFilled();
+		} else {
+			this.current = new Block(this.blockSlots, this.connectivityWords, this.arrivalWords);
+			this.fill(this.current);
+		}
+	}
+	
+	public BatchedTrafficSource(TrafficGenerator traffic) {
+		this(traffic, DEFAULT_BLOCK_SLOTS, false);
+	}
+	
+	private void fill(Block block) {
+		for (int j = 0; j < this.blockSlots; j++) {
+			block.arrivalCounts[j] = this.traffic.nextArrivals(this.slotArrivals);
+			System.arraycopy(this.slotArrivals, 0, block.arrivals, j * this.arrivalWords, this.arrivalWords);
+			this.traffic.nextConnectivity(this.slotConnectivity);
+			System.arraycopy(this.slotConnectivity.getWords(), 0, block.connectivity, j * this.connectivityWords, this.connectivityWords);
+		}
+	}
+	
+	private void produce() {
+		Block block = null;
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				block = this.freeBlocks.take();
+				this.fill(block);
+				this.filledBlocks.put(block);
+				block = null;
+			}
+		} catch (InterruptedException e) {
+			// closed
+		} catch (RuntimeException e) {
+			if (block == null)
+				block = new Block(0, 0, 0);
+			block.failure = e;
+			this.filledBlocks.offer(block);
+		}
+	}
+	
+	private Block takeFilled() {
+		Block block;
+		try {
+			block = this.filledBlocks.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for traffic", e);
+		}
+		if (block.failure != null)
+			throw new IllegalStateException("Traffic producer failed", block.failure);
+		return block;
+	}
+	
+	private void nextBlock() {
+		this.slot = 0;
+		if (this.producer == null) {
+			this.fill(this.current);
+			return;
+		}
+		this.freeBlocks.add(this.current);
+		this.current = this.takeFilled();
+	}
+	
+	/**
+	 * @throws IllegalStateException if called twice without nextConnectivity in between
+	 */
+	@Override
+	public int nextArrivals(long[] arrivalMask) {
+		if (this.arrivalsTaken)
+			throw new IllegalStateException("Arrivals already read for this slot");
+		System.arraycopy(this.current.arrivals, this.slot * this.arrivalWords, arrivalMask, 0, this.arrivalWords);
+		this.arrivalsTaken = true;
+		return this.current.arrivalCounts[this.slot];
+	}
+	
+	/**
+	 * @throws IllegalStateException if the arrivals before this slot have not been read
+	 */
+	@Override
+	public void nextConnectivity(ConnectivityMatrix connectivity) {
+		if (!this.arrivalsTaken)
+			throw new IllegalStateException("Arrivals must be read before the next connectivity");
+		System.arraycopy(this.current.connectivity, this.slot * this.connectivityWords, connectivity.getWords(), 0, this.connectivityWords);
+		this.arrivalsTaken = false;
+		if (++this.slot == this.blockSlots)
+			this.nextBlock();
+	}
+	
+	@Override
+	public void skipConnectivity() {
+		if (!this.arrivalsTaken)
+			throw new IllegalStateException("Arrivals must be read before the next connectivity");
+		this.arrivalsTaken = false;
+		if (++this.slot == this.blockSlots)
+			this.nextBlock();
+	}
+	
+	/**
+	 * Stops the producer thread, if there is one.
+	 */
+	@Override
+	public void close() {
+		if (this.producer != null)
+			this.producer.interrupt();
+	}
+	
+	public int getBlockSlots() {
+		return blockSlots;
+	}
+	
+	public boolean hasProducerThread() {
+		return producer != null;
+	}
+}
@@ -0,0 +1,91 @@
+package simproject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a checkpoint written by CheckpointWriter, in the order it was written.
+ */
+public class CheckpointReader implements AutoCloseable {
+	
+	private static final int BUFFER_BYTES = 1 << 16;
+	private static final int MAX_STRING_BYTES = 1 << 12;
+	
+	private Path path;
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	
+	public CheckpointReader(Path path) throws IOException {
+		this.path = path;
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		this.buffer.flip();
+		try {
+			if (this.getInt() != CheckpointWriter.MAGIC)
+				throw new IOException("Not a checkpoint file: " + path);
+			int version = this.getInt();
+			if (version != CheckpointWriter.VERSION)
+				throw new IOException("Unsupported checkpoint version " + version + " in " + path);
+		} catch (IOException e) {
+			this.channel.close();
+			throw e;
+		}
+	}
+	
+	private void ensureRemaining(int bytes) throws IOException {
+		if (this.buffer.remaining() >= bytes)
+			return;
+		this.buffer.compact();
+		while (this.buffer.position() < bytes) {
+			if (this.channel.read(this.buffer) < 0)
+				throw new IOException("Truncated checkpoint file: " + this.path);
+		}
+		this.buffer.flip();
+	}
+	
+	public int getInt() throws IOException {
+		this.ensureRemaining(4);
+		return this.buffer.getInt();
+	}
+	
+	public long getLong() throws IOException {
+		this.ensureRemaining(8);
+		return this.buffer.getLong();
+	}
+	
+	public double getDouble() throws IOException {
+		this.ensureRemaining(8);
+		return this.buffer.getDouble();
+	}
+	
+	public boolean getBoolean() throws IOException {
+		return this.getInt() != 0;
+	}
+	
+	public String getString() throws IOException {
+		int length = this.getInt();
+		if (length < 0 || length > MAX_STRING_BYTES)
+			throw new IOException("Corrupt checkpoint file: " + this.path);
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < bytes.length; i++) {
+			this.ensureRemaining(1);
+			bytes[i] = this.buffer.get();
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	public void getDoubles(double[] values, int count) throws IOException {
+		for (int i = 0; i < count; i++)
+			values[i] = this.getDouble();
+	}
+	
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+}
@@ -0,0 +1,121 @@
+package simproject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a checkpoint as little-endian primitives through a direct buffer and
+ * a FileChannel. The data goes to a temporary file next to the target, which
+ * replaces the target on commit. Closing without a commit, as when a write
+ * throws inside try-with-resources, deletes the temporary file, so a failure
+ * or crash while writing leaves the previous checkpoint intact.
+ */
+public class CheckpointWriter implements AutoCloseable {
+	
+	public static final int MAGIC = 0x4B434D53;
+	public static final int VERSION = 2;
+	private static final int BUFFER_BYTES = 1 << 16;
+	
+	private Path path;
+	private Path temporaryPath;
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	private boolean committed;
+	
+	public CheckpointWriter(Path path) throws IOException {
+		this.path = path;
+		this.temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+		this.channel = FileChannel.open(this.temporaryPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		this.putInt(MAGIC);
+		this.putInt(VERSION);
+	}
+	
+	private void ensureRemaining(int bytes) throws IOException {
+		if (this.buffer.remaining() < bytes)
+			this.flush();
+	}
+	
+	private void flush() throws IOException {
+		this.buffer.flip();
+		while (this.buffer.hasRemaining())
+			this.channel.write(this.buffer);
+		this.buffer.clear();
+	}
+	
+	public void putInt(int value) throws IOException {
+		this.ensureRemaining(4);
+		this.buffer.putInt(value);
+	}
+	
+	public void putLong(long value) throws IOException {
+		this.ensureRemaining(8);
+		this.buffer.putLong(value);
+	}
+	
+	public void putDouble(double value) throws IOException {
+		this.ensureRemaining(8);
+		this.buffer.putDouble(value);
+	}
+	
+	public void putBoolean(boolean value) throws IOException {
+		this.putInt(value ? 1 : 0);
+	}
+	
+	public void putString(String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		this.putInt(bytes.length);
+		for (byte b : bytes) {
+			this.ensureRemaining(1);
+			this.buffer.put(b);
+		}
+	}
+	
+	public void putDoubles(double[] values, int count) throws IOException {
+		for (int i = 0; i < count; i++)
+			this.putDouble(values[i]);
+	}
+	
+	/**
+	 * Flushes, syncs and moves the checkpoint into place.
+	 *
+	 * @throws IllegalStateException if the checkpoint was already committed
+	 */
+	public void commit() throws IOException {
+		if (this.committed)
+			throw new IllegalStateException("Checkpoint already committed");
+		try {
+			this.flush();
+			this.channel.force(false);
+		} finally {
+			this.channel.close();
+		}
+		Files.move(this.temporaryPath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		this.committed = true;
+	}
+	
+	/**
+	 * Discards the checkpoint unless it was committed.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.committed)
+			return;
+		try {
+			this.channel.close();
+		} finally {
+			Files.deleteIfExists(this.temporaryPath);
+		}
+	}
+	
+	public Path getPath() {
+		return path;
+	}
+}
@@ -0,0 +1,62 @@
+package simproject;
+
+/**
+ * Indices 0..size-1 in ascending order of their connection count, ties broken
+ * by index. Counts are bounded by maxCount, so the order is a stable counting
+ * sort in O(size + maxCount) with no allocation. It is rebuilt lazily, on the
+ * first read after invalidate(), so a slot whose policy never reads an order
+ * does not pay for it.
+ */
+public class ConnectionOrder {
+	
+	private int[] counts;
+	private int[] order;
+	private int[] buckets;
+	private boolean sorted;
+	
+	public ConnectionOrder(int size, int maxCount) {
+		this.counts = new int[size];
+		this.order = new int[size];
+		this.buckets = new int[maxCount + 2];
+		this.sorted = false;
+	}
+	
+	/**
+	 * Returns the counts for the caller to fill in; call invalidate() after
+	 * changing them.
+	 */
+	public int[] getCounts() {
+		return counts;
+	}
+	
+	public int getCount(int index) {
+		return counts[index];
+	}
+	
+	public void invalidate() {
+		this.sorted = false;
+	}
+	
+	public int[] getOrder() {
+		if (!this.sorted) {
+			sortByCount(this.counts, this.order, this.buckets);
+			this.sorted = true;
+		}
+		return order;
+	}
+	
+	/**
+	 * Stable counting sort of indices by ascending count. Counts lie in
+	 * [0, buckets.length - 2], and buckets is scratch space.
+	 */
+	static void sortByCount(int[] counts, int[] order, int[] buckets) {
+		for (int b = 0; b < buckets.length; b++)
+			buckets[b] = 0;
+		for (int i = 0; i < counts.length; i++)
+			buckets[counts[i] + 1]++;
+		for (int b = 1; b < buckets.length; b++)
+			buckets[b] += buckets[b - 1];
+		for (int i = 0; i < counts.length; i++)
+			order[buckets[counts[i]]++] = i;
+	}
+}
@@ -0,0 +1,132 @@
+package simproject;
+
+/**
+ * Queue to server connectivity packed as bits. Each queue owns a row of
+ * {@link #getWordsPerQueue()} longs, with bit (s % 64) of word (s / 64) set when
+ * the queue is connected to server index s.
+ */
+public class ConnectivityMatrix {
+	
+	private int numberOfQueues;
+	private int numberOfServers;
+	private int wordsPerQueue;
+	private long[] words;
+	
+	public ConnectivityMatrix(int noQueues, int noServers) {
+		this.numberOfQueues = noQueues;
+		this.numberOfServers = noServers;
+		this.wordsPerQueue = wordsFor(noServers);
+		this.words = new long[noQueues * this.wordsPerQueue];
+	}
+	
+	public static int wordsFor(int bits) {
+		return (bits + 63) >>> 6;
+	}
+	
+	public boolean isConnected(int queueIndex, int serverIndex) {
+		return (this.words[queueIndex * this.wordsPerQueue + (serverIndex >>> 6)] & (1L << serverIndex)) != 0;
+	}
+	
+	public void setConnected(int queueIndex, int serverIndex, boolean connected) {
+		int word = queueIndex * this.wordsPerQueue + (serverIndex >>> 6);
+		if (connected)
+			this.words[word] |= (1L << serverIndex);
+		else
+			this.words[word] &= ~(1L << serverIndex);
+	}
+	
+	public void clear() {
+		for (int w = 0; w < this.words.length; w++)
+			this.words[w] = 0;
+	}
+	
+	public void copyFrom(ConnectivityMatrix other) {
+		System.arraycopy(other.words, 0, this.words, 0, this.words.length);
+	}
+	
+	/**
+	 * Sets every cell independently with probability prob, one word at a time.
+	 * A bit is set when the top 53 bits of a draw fall below prob * 2^53, which
+	 * is the same test as nextDouble() < prob without the conversion.
+	 */
+	public void fill(double prob, RandomSource random) {
+		this.fillRows(0, this.numberOfQueues, prob, random);
+	}
+	
+	/**
+	 * Fills the rows of queues [fromQueue, toQueue) as {@link #fill} does.
+	 * Disjoint row ranges can be filled from different threads.
+	 */
+	public void fillRows(int fromQueue, int toQueue, double prob, RandomSource random) {
+		if (!(prob >= 0.0 && prob <= 1.0))
+			throw new IllegalArgumentException("Probability must be between 0.0 and 1.0");
+		long threshold = (long) Math.ceil(prob * 0x1.0p53);
+		for (int q = fromQueue; q < toQueue; q++) {
+			int rowStart = q * this.wordsPerQueue;
+			for (int w = 0; w < this.wordsPerQueue; w++) {
+				int bits = (w == this.wordsPerQueue - 1) ? this.numberOfServers - (w << 6) : 64;
+				long word = 0;
+				for (int b = 0; b < bits; b++) {
+					if ((random.nextLong() >>> 11) < threshold)
+						word |= (1L << b);
+				}
+				this.words[rowStart + w] = word;
+			}
+		}
+	}
+	
+	public int countQueueConnections(int queueIndex) {
+		int count = 0;
+		int rowStart = queueIndex * this.wordsPerQueue;
+		for (int w = 0; w < this.wordsPerQueue; w++)
+			count += Long.bitCount(this.words[rowStart + w]);
+		return count;
+	}
+	
+	/**
+	 * Adds the connections of every server into counts, which must have room
+	 * for numberOfServers entries.
+	 */
+	public void countServerConnections(int[] counts) {
+		this.countServerConnections(counts, 0, this.numberOfQueues);
+	}
+	
+	/**
+	 * Adds the connections of the rows [fromQueue, toQueue) into counts.
+	 */
+	public void countServerConnections(int[] counts, int fromQueue, int toQueue) {
+		for (int q = fromQueue; q < toQueue; q++) {
+			int rowStart = q * this.wordsPerQueue;
+			for (int w = 0; w < this.wordsPerQueue; w++) {
+				long word = this.words[rowStart + w];
+				while (word != 0) {
+					counts[(w << 6) + Long.numberOfTrailingZeros(word)]++;
+					word &= word - 1;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns word w of the row of queueIndex.
+	 */
+	public long getWord(int queueIndex, int w) {
+		return this.words[queueIndex * this.wordsPerQueue + w];
+	}
+	
+	public long[] getWords() {
+		return words;
+	}
+	
+	public int getWordsPerQueue() {
+		return wordsPerQueue;
+	}
+	
+	public int getNumberOfQueues() {
+		return numberOfQueues;
+	}
+
+	public int getNumberOfServers() {
+		return numberOfServers;
+	}
+}
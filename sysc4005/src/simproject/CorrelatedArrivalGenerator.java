@@ -0,0 +1,280 @@
+package simproject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Correlated arrivals with one chain per queue. CorrelatedUniformRandom walks
+ * a single chain across every queue, so a queue sees its previous draw
+ * numberOfQueues steps back, and its draw depends on the queues before it in
+ * the same slot. Here every queue has its own chain, kept in a double[], and
+ * every slot moves it by the numberOfQueues-step transition of the shared
+ * chain, so each queue has the same marginal arrival rate and the same
+ * correlation from slot to slot as with CorrelatedUniformRandom, but queues
+ * are independent of each other. A set of queues can be given to another
+ * thread by building a generator for them on a split RandomSource.
+ *
+ * Stepping each chain numberOfQueues times a slot would cost numberOfQueues
+ * squared draws, so the transition is tabulated instead: [0, 1) is cut into
+ * BINS bins, the one-step transition between bins is raised to the
+ * numberOfQueues-th power, and each row is sampled with an alias table. A
+ * slot then costs one draw per queue, the tables are built once per bounds
+ * and number of queues, and the binning moves rates and correlations by far
+ * less than the sampling error of a run.
+ */
+public class CorrelatedArrivalGenerator {
+
+	static final int BINS = 256;
+	// Points per bin at which the one-step transition is averaged
+	private static final int BIN_SAMPLES = 16;
+
+	private static final Map<TableKey, StepTable> TABLES = new ConcurrentHashMap<>();
+
+	private double[] currentNumbers;
+	private double correlatedA;
+	private double correlatedB;
+	private RandomSource random;
+	private long[] bits;
+	private StepTable correlatedTable;
+	private StepTable uncorrelatedTable;
+
+	public CorrelatedArrivalGenerator(int numberOfQueues, double a, double b, RandomSource random) {
+		if (!(0 - a < b)) throw new IllegalArgumentException("Invalid range");
+		this.correlatedA = a;
+		this.correlatedB = b;
+		this.random = random;
+		this.currentNumbers = new double[numberOfQueues];
+		for (int q = 0; q < numberOfQueues; q++)
+			this.currentNumbers[q] = random.nextDouble();
+		this.bits = new long[numberOfQueues];
+	}
+
+	/**
+	 * Moves every chain with the correlated draw and sets out[q] to 1 when
+	 * queue q has an arrival, 0 otherwise. Returns the number of arrivals.
+	 */
+	public int nextBernoulli(double p, int[] out) {
+		this.nextUniforms(true);
+		int arrived = 0;
+		for (int q = 0; q < this.currentNumbers.length; q++) {
+			// x % .65 for x in [0, 1), exact since .65 is within a factor of two of x
+			double x = this.currentNumbers[q];
+			double folded = x >= .65 ? x - .65 : x;
+			out[q] = folded <= p ? 1 : 0;
+			arrived += out[q];
+		}
+		return arrived;
+	}
+
+	/**
+	 * Draws one arrival per queue into mask, using the correlated draw when
+	 * correlated is set, as CorrelatedUniformRandom.nextArrivals does.
+	 * Returns the number of arrivals.
+	 */
+	public int nextArrivals(double prob, boolean correlated, long[] mask) {
+		this.nextUniforms(correlated);
+		for (int w = 0; w < mask.length; w++)
+			mask[w] = 0;
+		int arrived = 0;
+		for (int q = 0; q < this.currentNumbers.length; q++) {
+			double x = this.currentNumbers[q];
+			if (correlated && x >= .65)
+				x -= .65;
+			if (x <= prob) {
+				mask[q >>> 6] |= (1L << q);
+				arrived++;
+			}
+		}
+		return arrived;
+	}
+
+	/**
+	 * Moves every chain by numberOfQueues steps of the correlated draw
+	 * |x + U(-a, b)| mod 1, or of (x + |U(-a, b)|) mod 1, as in
+	 * CorrelatedUniformRandom. The top bits of a draw pick the alias column,
+	 * the middle ones accept it and the low ones place x within its bin.
+	 */
+	private void nextUniforms(boolean correlated) {
+		int numberOfQueues = this.currentNumbers.length;
+		StepTable table = this.table(correlated);
+		double[] accept = table.accept;
+		int[] alias = table.alias;
+		this.random.nextLongs(this.bits, numberOfQueues);
+		for (int q = 0; q < numberOfQueues; q++) {
+			long bits = this.bits[q];
+			int bin = (int) (this.currentNumbers[q] * BINS);
+			int column = (int) (bits >>> 56);
+			int cell = bin * BINS + column;
+			int next = ((bits >>> 32) & 0xFFFFFF) * 0x1.0p-24 < accept[cell] ? column : alias[cell];
+			this.currentNumbers[q] = (next + (bits & 0xFFFFFFFFL) * 0x1.0p-32) * (1.0 / BINS);
+		}
+	}
+
+	private StepTable table(boolean correlated) {
+		if (correlated) {
+			if (this.correlatedTable == null)
+				this.correlatedTable = stepTable(this.correlatedA, this.correlatedB, true, this.currentNumbers.length);
+			return this.correlatedTable;
+		}
+		if (this.uncorrelatedTable == null)
+			this.uncorrelatedTable = stepTable(this.correlatedA, this.correlatedB, false, this.currentNumbers.length);
+		return this.uncorrelatedTable;
+	}
+
+	private static StepTable stepTable(double a, double b, boolean correlated, int steps) {
+		return TABLES.computeIfAbsent(new TableKey(a, b, correlated, Math.max(steps, 1)), StepTable::new);
+	}
+
+	public int getNumberOfQueues() {
+		return this.currentNumbers.length;
+	}
+
+	public double[] getCurrentNumbers() {
+		return currentNumbers;
+	}
+
+	public double getCorrelatedA() {
+		return correlatedA;
+	}
+
+	public double getCorrelatedB() {
+		return correlatedB;
+	}
+
+	public RandomSource getRandomSource() {
+		return random;
+	}
+
+	private record TableKey(double a, double b, boolean correlated, int steps) {
+	}
+
+	/**
+	 * Alias tables of the steps-fold transition between bins: from bin i, a
+	 * uniform column j is kept with probability accept[i * BINS + j] and is
+	 * replaced by alias[i * BINS + j] otherwise.
+	 */
+	static final class StepTable {
+
+		final double[] accept = new double[BINS * BINS];
+		final int[] alias = new int[BINS * BINS];
+
+		private StepTable(TableKey key) {
+			double[][] transition = power(oneStep(key.a(), key.b(), key.correlated()), key.steps());
+			for (int bin = 0; bin < BINS; bin++)
+				this.fillRow(bin, transition[bin]);
+		}
+
+		/**
+		 * Vose's alias method on one row of the transition.
+		 */
+		private void fillRow(int bin, double[] row) {
+			double total = 0;
+			for (int j = 0; j < BINS; j++)
+				total += row[j];
+			double[] scaled = new double[BINS];
+			int[] small = new int[BINS];
+			int[] large = new int[BINS];
+			int smallCount = 0;
+			int largeCount = 0;
+			for (int j = 0; j < BINS; j++) {
+				scaled[j] = row[j] * BINS / total;
+				if (scaled[j] < 1)
+					small[smallCount++] = j;
+				else
+					large[largeCount++] = j;
+			}
+			int offset = bin * BINS;
+			while (smallCount > 0 && largeCount > 0) {
+				int less = small[--smallCount];
+				int more = large[--largeCount];
+				this.accept[offset + less] = scaled[less];
+				this.alias[offset + less] = more;
+				scaled[more] += scaled[less] - 1;
+				if (scaled[more] < 1)
+					small[smallCount++] = more;
+				else
+					large[largeCount++] = more;
+			}
+			// what is left is 1 up to rounding
+			while (largeCount > 0) {
+				int j = large[--largeCount];
+				this.accept[offset + j] = 1;
+				this.alias[offset + j] = j;
+			}
+			while (smallCount > 0) {
+				int j = small[--smallCount];
+				this.accept[offset + j] = 1;
+				this.alias[offset + j] = j;
+			}
+		}
+
+		/**
+		 * One step of the chain between bins, averaged over BIN_SAMPLES points
+		 * of each bin. For a point x the step lands uniformly on [x - a, x + b]
+		 * before the fold, or on [x, x + b] and [x, x + a] with equal weight
+		 * for the uncorrelated step, whose increment is |U(-a, b)|.
+		 */
+		private static double[][] oneStep(double a, double b, boolean correlated) {
+			double[][] transition = new double[BINS][BINS];
+			double weight = 1.0 / (BIN_SAMPLES * (a + b));
+			for (int bin = 0; bin < BINS; bin++) {
+				for (int s = 0; s < BIN_SAMPLES; s++) {
+					double x = (bin + (s + 0.5) / BIN_SAMPLES) / BINS;
+					if (correlated) {
+						spread(transition[bin], x - a, x + b, weight);
+					} else {
+						spread(transition[bin], x, x + b, weight);
+						spread(transition[bin], x, x + a, weight);
+					}
+				}
+			}
+			return transition;
+		}
+
+		/**
+		 * Adds weight times the length of [low, high] that folds into each bin
+		 * under y -> |y| mod 1.
+		 */
+		private static void spread(double[] row, double low, double high, double weight) {
+			long first = (long) Math.floor(low * BINS);
+			long last = (long) Math.floor(high * BINS);
+			for (long cell = first; cell <= last; cell++) {
+				double length = Math.min(high, (double) (cell + 1) / BINS) - Math.max(low, (double) cell / BINS);
+				if (length <= 0)
+					continue;
+				// [c, c + 1) / BINS folds onto [-c - 1, -c) / BINS below zero
+				long folded = cell >= 0 ? cell : -cell - 1;
+				row[(int) (folded % BINS)] += length * weight;
+			}
+		}
+
+		private static double[][] power(double[][] transition, int steps) {
+			double[][] result = null;
+			double[][] square = transition;
+			while (true) {
+				if ((steps & 1) != 0)
+					result = result == null ? square : multiply(result, square);
+				steps >>>= 1;
+				if (steps == 0)
+					return result;
+				square = multiply(square, square);
+			}
+		}
+
+		private static double[][] multiply(double[][] left, double[][] right) {
+			double[][] product = new double[BINS][BINS];
+			for (int i = 0; i < BINS; i++) {
+				double[] row = product[i];
+				for (int k = 0; k < BINS; k++) {
+					double factor = left[i][k];
+					if (factor == 0)
+						continue;
+					double[] other = right[k];
+					for (int j = 0; j < BINS; j++)
+						row[j] += factor * other[j];
+				}
+			}
+			return product;
+		}
+	}
+}
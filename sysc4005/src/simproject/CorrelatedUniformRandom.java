@@ -5,16 +5,22 @@ public class CorrelatedUniformRandom {
 	private double currentNumber;
 	private double correlatedA;
 	private double correlatedB;
+	private RandomSource random;
 	
-	public CorrelatedUniformRandom(double a, double b) {
+	public CorrelatedUniformRandom(double a, double b, RandomSource random) {
 		this.correlatedA = a;
 		this.correlatedB = b;
-		this.currentNumber = Math.random();
+		this.random = random;
+		this.currentNumber = random.nextDouble();
 		//System.out.println("Constant V is " + this.constantV);
 	}
 	
+	public CorrelatedUniformRandom(double a, double b) {
+		this(a, b, new XoshiroRandomSource());
+	}
+	
 	public double nextUniformRandom() {
-		double nextNumber = (this.currentNumber + Math.abs(StdRandom.uniform(0 - this.correlatedA, this.correlatedB))) % 1;
+		double nextNumber = (this.currentNumber + Math.abs(this.random.uniform(0 - this.correlatedA, this.correlatedB))) % 1;
 		//double nextNumber = Math.random();
 		this.currentNumber = nextNumber;
 		//System.out.println("Next random is " + this.currentNumber);
@@ -22,7 +28,7 @@ public class CorrelatedUniformRandom {
 	}
 	
 	public double nextUniformCorrelatedRandom() {
-		double nextNumber = Math.abs(this.currentNumber + StdRandom.uniform(0 - this.correlatedA, this.correlatedB)) % 1;
+		double nextNumber = Math.abs(this.currentNumber + this.random.uniform(0 - this.correlatedA, this.correlatedB)) % 1;
 		this.currentNumber = nextNumber;
 		return this.currentNumber;
 	}
@@ -43,6 +49,44 @@ public class CorrelatedUniformRandom {
 			return 0;
 	}
 	
+	/**
+	 * Draws one arrival per queue into mask, using the correlated draw when
+	 * correlated is set. Returns the number of arrivals.
+	 */
+	public int nextArrivals(double prob, boolean correlated, int numberOfQueues, long[] mask) {
+		int arrived = 0;
+		for (int w = 0; w < mask.length; w++)
+			mask[w] = 0;
+		for (int queue = 0; queue < numberOfQueues; queue++) {
+			int packetArrived = correlated ? this.nextBernouliiCorrelatedRandom(prob) : this.nextBernouliiRandom(prob);
+			if (packetArrived == 1) {
+				mask[queue >>> 6] |= (1L << queue);
+				arrived++;
+			}
+		}
+		return arrived;
+	}
+	
+	public double getCurrentNumber() {
+		return currentNumber;
+	}
+	
+	public void setCurrentNumber(double currentNumber) {
+		this.currentNumber = currentNumber;
+	}
+	
+	public double getCorrelatedA() {
+		return correlatedA;
+	}
+	
+	public double getCorrelatedB() {
+		return correlatedB;
+	}
+	
+	public RandomSource getRandomSource() {
+		return random;
+	}
+	
 	public static void main(String[] args) {
 		CorrelatedUniformRandom randGen = new CorrelatedUniformRandom(0.4, 0.4);
 		for (int i = 0; i < 20; i++) {
@@ -0,0 +1,16 @@
+package simproject;
+
+public class LCQSingleServerPolicy implements SchedulingPolicy {
+	
+	public static final String NAME = "lcq-single";
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public void schedule(Simulator simulator) {
+		simulator.scheduleLCQSingleServer();
+	}
+}
@@ -0,0 +1,16 @@
+package simproject;
+
+public class LCSFLCQPolicy implements SchedulingPolicy {
+	
+	public static final String NAME = "lcsf-lcq";
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public void schedule(Simulator simulator) {
+		simulator.scheduleLCSFLCQ();
+	}
+}
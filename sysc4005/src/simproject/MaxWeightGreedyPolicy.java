@@ -0,0 +1,16 @@
+package simproject;
+
+public class MaxWeightGreedyPolicy implements SchedulingPolicy {
+	
+	public static final String NAME = "max-weight-greedy";
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public void schedule(Simulator simulator) {
+		simulator.scheduleMaxWeightGreedy();
+	}
+}
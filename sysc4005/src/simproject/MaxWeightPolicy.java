@@ -0,0 +1,16 @@
+package simproject;
+
+public class MaxWeightPolicy implements SchedulingPolicy {
+	
+	public static final String NAME = "max-weight";
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public void schedule(Simulator simulator) {
+		simulator.scheduleMaxWeight();
+	}
+}
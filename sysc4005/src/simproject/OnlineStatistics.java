@@ -0,0 +1,127 @@
+package simproject;
+
+import java.io.IOException;
+
+/**
+ * Running count, mean, variance, minimum and maximum of a stream of
+ * observations in O(1) memory (Welford's update).
+ */
+public class OnlineStatistics {
+	
+	private long count;
+	private double mean;
+	private double sumOfSquaredDeviations;
+	private double min;
+	private double max;
+	
+	public OnlineStatistics() {
+		this.reset();
+	}
+	
+	public void reset() {
+		this.count = 0;
+		this.mean = 0;
+		this.sumOfSquaredDeviations = 0;
+		this.min = Double.POSITIVE_INFINITY;
+		this.max = Double.NEGATIVE_INFINITY;
+	}
+	
+	public void add(double x) {
+		this.count++;
+		double delta = x - this.mean;
+		this.mean += delta / this.count;
+		this.sumOfSquaredDeviations += delta * (x - this.mean);
+		if (x < this.min)
+			this.min = x;
+		if (x > this.max)
+			this.max = x;
+	}
+	
+	/**
+	 * Folds the observations of other into this one (Chan et al.).
+	 */
+	public void merge(OnlineStatistics other) {
+		if (other.count == 0)
+			return;
+		if (this.count == 0) {
+			this.count = other.count;
+			this.mean = other.mean;
+			this.sumOfSquaredDeviations = other.sumOfSquaredDeviations;
+			this.min = other.min;
+			this.max = other.max;
+			return;
+		}
+		long total = this.count + other.count;
+		double delta = other.mean - this.mean;
+		this.mean += delta * other.count / total;
+		this.sumOfSquaredDeviations += other.sumOfSquaredDeviations + delta * delta * ((double) this.count) * other.count / total;
+		this.count = total;
+		this.min = Math.min(this.min, other.min);
+		this.max = Math.max(this.max, other.max);
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+	
+	public double getSum() {
+		return this.mean * this.count;
+	}
+	
+	/**
+	 * Returns the sample variance, or 0 with fewer than two observations.
+	 */
+	public double getVariance() {
+		if (this.count < 2)
+			return 0;
+		return this.sumOfSquaredDeviations / (this.count - 1);
+	}
+	
+	public double getStandardDeviation() {
+		return Math.sqrt(this.getVariance());
+	}
+	
+	public double getStandardError() {
+		if (this.count == 0)
+			return 0;
+		return this.getStandardDeviation() / Math.sqrt(this.count);
+	}
+	
+	/**
+	 * Returns the half-width of the Student t confidence interval on the mean,
+	 * or positive infinity with fewer than two observations.
+	 */
+	public double getHalfWidth(double confidence) {
+		if (this.count < 2)
+			return Double.POSITIVE_INFINITY;
+		return StudentT.criticalValue(confidence, this.count - 1) * this.getStandardError();
+	}
+
+	public double getMin() {
+		return this.count == 0 ? 0 : min;
+	}
+
+	public double getMax() {
+		return this.count == 0 ? 0 : max;
+	}
+	
+	void writeState(CheckpointWriter out) throws IOException {
+		out.putLong(this.count);
+		out.putDouble(this.mean);
+		out.putDouble(this.sumOfSquaredDeviations);
+		out.putDouble(this.min);
+		out.putDouble(this.max);
+	}
+	
+	void readState(CheckpointReader in) throws IOException {
+		this.count = in.getLong();
+		this.mean = in.getDouble();
+		this.sumOfSquaredDeviations = in.getDouble();
+		this.min = in.getDouble();
+		this.max = in.getDouble();
+	}
+}
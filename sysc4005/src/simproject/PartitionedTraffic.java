@@ -0,0 +1,112 @@
+package simproject;
+
+/**
+ * Traffic cut into fixed blocks of BLOCK_QUEUES queues, each with its own
+ * connectivity stream and its own arrival chain, so that disjoint ranges of
+ * blocks can be drawn from different threads. The blocks do not depend on how
+ * they are shared out, so a run gives the same trace with any number of
+ * threads, and the same trace again when used as an ordinary TrafficSource.
+ *
+ * Within a block the arrival chain is walked across its queues as in
+ * TrafficGenerator, or stepped per queue with perQueueArrivals.
+ */
+public class PartitionedTraffic implements TrafficSource {
+
+	// A multiple of 64, so every block owns whole words of the arrival mask
+	public static final int BLOCK_QUEUES = 1024;
+
+	private int numberOfQueues;
+	private int numberOfServers;
+	private double connectivityProb;
+	private double packetArrivalProb;
+	private RandomSource[] connectivityRandoms;
+	private CorrelatedUniformRandom[] sharedChains;
+	private CorrelatedArrivalGenerator[] perQueueChains;
+	private long[][] blockMasks;
+
+	public PartitionedTraffic(int noQueues, int noServers, double connectivityProb, double packetArrivalProb, double aBound, double bBound, boolean perQueueArrivals, RandomSource random) {
+		this.numberOfQueues = noQueues;
+		this.numberOfServers = noServers;
+		this.connectivityProb = connectivityProb;
+		this.packetArrivalProb = packetArrivalProb;
+		int blocks = (noQueues + BLOCK_QUEUES - 1) / BLOCK_QUEUES;
+		this.connectivityRandoms = new RandomSource[blocks];
+		this.blockMasks = new long[blocks][];
+		if (perQueueArrivals)
+			this.perQueueChains = new CorrelatedArrivalGenerator[blocks];
+		else
+			this.sharedChains = new CorrelatedUniformRandom[blocks];
+		for (int block = 0; block < blocks; block++) {
+			this.connectivityRandoms[block] = random.split();
+			this.blockMasks[block] = new long[ConnectivityMatrix.wordsFor(this.getBlockSize(block))];
+			if (perQueueArrivals)
+				this.perQueueChains[block] = new CorrelatedArrivalGenerator(this.getBlockSize(block), aBound, bBound, random.split());
+			else
+				this.sharedChains[block] = new CorrelatedUniformRandom(aBound, bBound, random.split());
+		}
+	}
+
+	@Override
+	public void nextConnectivity(ConnectivityMatrix connectivity) {
+		this.nextConnectivity(connectivity, 0, this.getNumberOfBlocks());
+	}
+
+	/**
+	 * Draws the connectivity rows of blocks [fromBlock, toBlock).
+	 */
+	public void nextConnectivity(ConnectivityMatrix connectivity, int fromBlock, int toBlock) {
+		for (int block = fromBlock; block < toBlock; block++)
+			connectivity.fillRows(this.getBlockStart(block), this.getBlockStart(block) + this.getBlockSize(block), this.connectivityProb, this.connectivityRandoms[block]);
+	}
+
+	/**
+	 * Connectivity streams are separate from the arrival chains, so a skipped
+	 * slot draws nothing.
+	 */
+	@Override
+	public void skipConnectivity() {
+	}
+
+	@Override
+	public int nextArrivals(long[] arrivalMask) {
+		return this.nextArrivals(arrivalMask, 0, this.getNumberOfBlocks());
+	}
+
+	/**
+	 * Draws the arrivals of blocks [fromBlock, toBlock) into their words of
+	 * arrivalMask and returns the number of arrivals.
+	 */
+	public int nextArrivals(long[] arrivalMask, int fromBlock, int toBlock) {
+		boolean correlated = this.numberOfServers > 1;
+		int arrived = 0;
+		for (int block = fromBlock; block < toBlock; block++) {
+			long[] blockMask = this.blockMasks[block];
+			if (this.perQueueChains != null)
+				arrived += this.perQueueChains[block].nextArrivals(this.packetArrivalProb, correlated, blockMask);
+			else
+				arrived += this.sharedChains[block].nextArrivals(this.packetArrivalProb, correlated, this.getBlockSize(block), blockMask);
+			System.arraycopy(blockMask, 0, arrivalMask, this.getBlockStart(block) >>> 6, blockMask.length);
+		}
+		return arrived;
+	}
+
+	public int getNumberOfBlocks() {
+		return this.connectivityRandoms.length;
+	}
+
+	public int getBlockStart(int block) {
+		return block * BLOCK_QUEUES;
+	}
+
+	public int getBlockSize(int block) {
+		return Math.min(BLOCK_QUEUES, this.numberOfQueues - block * BLOCK_QUEUES);
+	}
+
+	public int getNumberOfQueues() {
+		return numberOfQueues;
+	}
+
+	public int getNumberOfServers() {
+		return numberOfServers;
+	}
+}
@@ -0,0 +1,87 @@
+package simproject;
+
+import java.util.List;
+
+/**
+ * Runs several scheduling policies side by side in one pass. Connectivity and
+ * arrivals are generated once per slot and shared by every policy's
+ * simulator. A policy run here sees the same trace and scheduling draws as
+ * a standalone Simulator built with the same seed.
+ */
+public class PolicyComparison {
+	
+	private int numberOfQueues;
+	private int numberOfServers;
+	private long seed;
+	private SchedulingPolicy[] policies;
+	private Simulator[] simulators;
+	
+	public PolicyComparison(int noQueues, int noServers, long seed, List<SchedulingPolicy> policies) {
+		this.numberOfQueues = noQueues;
+		this.numberOfServers = noServers;
+		this.seed = seed;
+		this.policies = policies.toArray(new SchedulingPolicy[policies.size()]);
+		this.simulators = new Simulator[this.policies.length];
+	}
+	
+	public void runSimulation(int times, double connectivityProb, double packetArrivalProb, double aBound, double bBound) {
+		RandomSource trafficRandom = this.createSimulators();
+		this.runSlots(times, new TrafficGenerator(this.numberOfQueues, this.numberOfServers, connectivityProb, packetArrivalProb, aBound, bBound, trafficRandom));
+	}
+	
+	/**
+	 * Runs every policy on traffic from elsewhere, for example a trace replayed
+	 * by TraceReplaySource.
+	 */
+	public void runSimulation(int times, TrafficSource traffic) {
+		this.createSimulators();
+		this.runSlots(times, traffic);
+	}
+	
+	private void runSlots(int times, TrafficSource traffic) {
+		ConnectivityMatrix slotConnectivity = new ConnectivityMatrix(this.numberOfQueues, this.numberOfServers);
+		long[] slotArrivals = new long[ConnectivityMatrix.wordsFor(this.numberOfQueues)];
+		traffic.nextArrivals(slotArrivals);
+		for (Simulator simulator : this.simulators)
+			simulator.addArrivals(slotArrivals);
+		for (int timeSlot = 1; timeSlot <= times; timeSlot++) {
+			traffic.nextConnectivity(slotConnectivity);
+			traffic.nextArrivals(slotArrivals);
+			for (Simulator simulator : this.simulators)
+				simulator.runTimeSlot(slotConnectivity, slotArrivals);
+		}
+	}
+	
+	/**
+	 * Returns the traffic stream split off the first simulator, the one a
+	 * standalone run of any of them would use.
+	 */
+	private RandomSource createSimulators() {
+		RandomSource trafficRandom = null;
+		for (int i = 0; i < this.policies.length; i++) {
+			this.simulators[i] = new Simulator(this.numberOfQueues, this.numberOfServers, this.seed);
+			this.simulators[i].setSchedulingPolicy(this.policies[i]);
+			// Split every source the way runSimulation would, so the scheduling streams match a standalone run
+			RandomSource split = this.simulators[i].getRandomSource().split();
+			if (trafficRandom == null)
+				trafficRandom = split;
+			this.simulators[i].refreshSimulation();
+		}
+		return trafficRandom;
+	}
+	
+	public double[] calculateAvgOccupancies(int times) {
+		double[] averages = new double[this.simulators.length];
+		for (int i = 0; i < this.simulators.length; i++)
+			averages[i] = this.simulators[i].calculateAvgOccupancy(times);
+		return averages;
+	}
+	
+	public SchedulingPolicy[] getPolicies() {
+		return policies;
+	}
+	
+	public Simulator[] getSimulators() {
+		return simulators;
+	}
+}
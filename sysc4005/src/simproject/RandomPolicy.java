@@ -0,0 +1,16 @@
+package simproject;
+
+public class RandomPolicy implements SchedulingPolicy {
+	
+	public static final String NAME = "random";
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public void schedule(Simulator simulator) {
+		simulator.scheduleRandomly();
+	}
+}
@@ -0,0 +1,16 @@
+package simproject;
+
+public class RandomSingleServerPolicy implements SchedulingPolicy {
+	
+	public static final String NAME = "random-single";
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public void schedule(Simulator simulator) {
+		simulator.scheduleRandomlySingleServer();
+	}
+}
@@ -0,0 +1,45 @@
+package simproject;
+
+/**
+ * Source of pseudo-random numbers owned by a single simulation. Implementations
+ * are not thread-safe; use {@link #split()} to hand an independent stream to
+ * another thread or replication.
+ */
+public interface RandomSource {
+	
+	/**
+	 * Returns the next 64 pseudo-random bits.
+	 */
+	public long nextLong();
+	
+	/**
+	 * Fills buffer[0, count) with the next count values of nextLong().
+	 */
+	public void nextLongs(long[] buffer, int count);
+	
+	/**
+	 * Returns a real number uniformly in [0, 1).
+	 */
+	public double nextDouble();
+	
+	/**
+	 * Returns an integer uniformly between 0 (inclusive) and bound (exclusive).
+	 */
+	public int nextInt(int bound);
+	
+	/**
+	 * Returns a real number uniformly in [a, b).
+	 */
+	public double uniform(double a, double b);
+	
+	/**
+	 * Returns true with probability p.
+	 */
+	public boolean bernoulli(double p);
+	
+	/**
+	 * Returns a new source, independent of this one and of any source split from
+	 * either of them.
+	 */
+	public RandomSource split();
+}
@@ -0,0 +1,52 @@
+package simproject;
+
+public class ReplicationResult {
+	
+	private double packetArrivalProb;
+	private int replication;
+	private double averageOccupancy;
+	private double confidenceInterval;
+	private long totalPacketsArrived;
+	private long totalPacketsAttempted;
+	
+	public ReplicationResult(double packetArrivalProb, int replication, double averageOccupancy, double confidenceInterval, long totalPacketsArrived, long totalPacketsAttempted) {
+		this.packetArrivalProb = packetArrivalProb;
+		this.replication = replication;
+		this.averageOccupancy = averageOccupancy;
+		this.confidenceInterval = confidenceInterval;
+		this.totalPacketsArrived = totalPacketsArrived;
+		this.totalPacketsAttempted = totalPacketsAttempted;
+	}
+
+	public double getPacketArrivalProb() {
+		return packetArrivalProb;
+	}
+
+	public int getReplication() {
+		return replication;
+	}
+
+	public double getAverageOccupancy() {
+		return averageOccupancy;
+	}
+
+	/**
+	 * Returns the batch means confidence interval half-width of this
+	 * replication's average occupancy.
+	 */
+	public double getConfidenceInterval() {
+		return confidenceInterval;
+	}
+
+	public long getTotalPacketsArrived() {
+		return totalPacketsArrived;
+	}
+
+	public long getTotalPacketsAttempted() {
+		return totalPacketsAttempted;
+	}
+	
+	public double getArrivalRate() {
+		return ((double) this.totalPacketsArrived) / ((double) this.totalPacketsAttempted);
+	}
+}
@@ -0,0 +1,348 @@
+package simproject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs independent (lambda, replication) jobs of runSimulation on an executor.
+ * Every job gets its own engine with a stream split off a root source in job
+ * order, and results are returned indexed by job rather than by completion
+ * order, so the numbers do not depend on how many threads the executor has.
+ */
+public class ReplicationRunner {
+	
+	public static final double DEFAULT_CONFIDENCE = 0.95;
+	
+	private ExecutorService executor;
+	private boolean ownsExecutor;
+	private int threads;
+	private long baseSeed;
+	private int numberOfQueues;
+	private int numberOfServers;
+	private SchedulingPolicy schedulingPolicy;
+	private int maxInFlight;
+	private int workerThreads;
+	private boolean warmupDetection;
+	private String engine;
+	private String slotKernel;
+	private int trafficBlockSlots;
+	private boolean trafficProducer;
+	private boolean perQueueArrivals;
+	private int[] serverCapacities;
+	
+	public ReplicationRunner(ExecutorService executor, long baseSeed) {
+		this.executor = executor;
+		this.ownsExecutor = false;
+		this.threads = Runtime.getRuntime().availableProcessors();
+		this.baseSeed = baseSeed;
+		this.numberOfQueues = Simulator.NUMBER_OF_QUEUES;
+		this.numberOfServers = Simulator.NUMBER_OF_SERVERS;
+		this.schedulingPolicy = SchedulingPolicies.getDefault();
+		this.maxInFlight = Runtime.getRuntime().availableProcessors();
+		this.warmupDetection = false;
+		this.engine = SimulationEngines.OBJECTS;
+		this.slotKernel = ScalarSlotKernel.NAME;
+	}
+	
+	public ReplicationRunner(int threads, long baseSeed) {
+		this(new ForkJoinPool(threads), baseSeed);
+		this.ownsExecutor = true;
+		this.threads = threads;
+		this.maxInFlight = threads;
+	}
+	
+	public void setTopology(int noQueues, int noServers) {
+		this.numberOfQueues = noQueues;
+		this.numberOfServers = noServers;
+	}
+	
+	public void setSchedulingPolicy(SchedulingPolicy schedulingPolicy) {
+		this.schedulingPolicy = schedulingPolicy;
+	}
+	
+	/**
+	 * Deletes each replication's warm-up, as detected by MSER-5, before its
+	 * statistics are taken. Off by default.
+	 */
+	public void setWarmupDetection(boolean warmupDetection) {
+		this.warmupDetection = warmupDetection;
+	}
+	
+	/**
+	 * @param engine one of SimulationEngines.getNames()
+	 */
+	public void setEngine(String engine) {
+		this.engine = engine;
+	}
+	
+	/**
+	 * @param slotKernel one of SlotKernels.getNames()
+	 */
+	public void setSlotKernel(String slotKernel) {
+		this.slotKernel = slotKernel;
+	}
+	
+	/**
+	 * @see SimulationEngine#setTrafficBatching(int, boolean)
+	 */
+	public void setTrafficBatching(int blockSlots, boolean producerThread) {
+		this.trafficBlockSlots = blockSlots;
+		this.trafficProducer = producerThread;
+	}
+	
+	/**
+	 * @see SimulationEngine#setPerQueueArrivals(boolean)
+	 */
+	public void setPerQueueArrivals(boolean perQueueArrivals) {
+		this.perQueueArrivals = perQueueArrivals;
+	}
+	
+	/**
+	 * Sets the packets per slot of every server, or null for one each.
+	 */
+	public void setServerCapacities(int[] serverCapacities) {
+		this.serverCapacities = serverCapacities;
+	}
+	
+	/**
+	 * Sets how many replications runUntilPrecision keeps queued or running at
+	 * once. Defaults to the thread count.
+	 */
+	public void setMaxInFlight(int maxInFlight) {
+		this.maxInFlight = maxInFlight;
+	}
+	
+	/**
+	 * Sets the worker threads of every run of the parallel engine. Zero, the
+	 * default, shares the processors out between the replications that can
+	 * run at once, so a full pool of parallel runs does not start a thread
+	 * per processor each.
+	 */
+	public void setWorkerThreads(int workerThreads) {
+		this.workerThreads = workerThreads;
+	}
+	
+	public int getWorkerThreads() {
+		if (this.workerThreads > 0)
+			return this.workerThreads;
+		return Math.max(1, Runtime.getRuntime().availableProcessors() / this.threads);
+	}
+	
+	/**
+	 * @param cancelled stops the run once set, or null
+	 */
+	Callable<ReplicationResult> replication(final int times, final double connectivityProb, final double packetArrivalProb, final double aBound, final double bBound, final int rep, final RandomSource random, final AtomicBoolean cancelled) {
+		return new Callable<ReplicationResult>() {
+			@Override
+			public ReplicationResult call() {
+				SimulationEngine simulator = SimulationEngines.create(engine, numberOfQueues, numberOfServers, random, getWorkerThreads());
+				simulator.setSchedulingPolicy(schedulingPolicy);
+				simulator.setWarmupDetection(warmupDetection);
+				simulator.setSlotKernel(SlotKernels.create(slotKernel));
+				simulator.setTrafficBatching(trafficBlockSlots, trafficProducer);
+				simulator.setPerQueueArrivals(perQueueArrivals);
+				simulator.setCancellation(cancelled);
+				if (serverCapacities != null) {
+					for (int s = 0; s < numberOfServers; s++)
+						simulator.setServerCapacity(s, serverCapacities[s]);
+				}
+				simulator.runSimulation(times, connectivityProb, packetArrivalProb, aBound, bBound);
+				double average = simulator.calculateAvgOccupancy(times);
+				return new ReplicationResult(packetArrivalProb, rep, average, simulator.calculateOccupancyHalfWidth(DEFAULT_CONFIDENCE), simulator.getTotalPacketsArrived(), simulator.getTotalPacketsAttempted());
+			}
+		};
+	}
+	
+	public ReplicationResult[][] runReplications(int replications, int times, double connectivityProb, double[] packetArrivalProbs, double aBound, double bBound) {
+		List<Future<ReplicationResult>> futures = new ArrayList<Future<ReplicationResult>>();
+		RandomSource rootRandom = new XoshiroRandomSource(this.baseSeed);
+		for (int lambdaIndex = 0; lambdaIndex < packetArrivalProbs.length; lambdaIndex++) {
+			for (int replication = 0; replication < replications; replication++) {
+				futures.add(this.executor.submit(this.replication(times, connectivityProb, packetArrivalProbs[lambdaIndex], aBound, bBound, replication, rootRandom.split(), null)));
+			}
+		}
+		
+		ReplicationResult[][] results = new ReplicationResult[packetArrivalProbs.length][replications];
+		int job = 0;
+		try {
+			for (int lambdaIndex = 0; lambdaIndex < packetArrivalProbs.length; lambdaIndex++) {
+				for (int replication = 0; replication < replications; replication++) {
+					results[lambdaIndex][replication] = futures.get(job++).get();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for replications", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Replication failed", e.getCause());
+		} finally {
+			for (Future<ReplicationResult> future : futures)
+				future.cancel(true);
+		}
+		return results;
+	}
+	
+	/**
+	 * Runs replications of every lambda until its stopping rule is met. Each
+	 * lambda draws its replication streams from its own source split off the
+	 * root in lambda order, so results do not depend on the other lambdas, and
+	 * since splits nest no replication of one lambda reuses the stream of
+	 * another's.
+	 */
+	public SequentialResult[] runUntilPrecision(int times, double connectivityProb, double[] packetArrivalProbs, double aBound, double bBound, SequentialStoppingRule rule) {
+		RandomSource rootRandom = new XoshiroRandomSource(this.baseSeed);
+		RandomSource[] lambdaRandoms = new RandomSource[packetArrivalProbs.length];
+		for (int lambdaIndex = 0; lambdaIndex < packetArrivalProbs.length; lambdaIndex++)
+			lambdaRandoms[lambdaIndex] = rootRandom.split();
+		return this.runUntilPrecision(times, connectivityProb, packetArrivalProbs, aBound, bBound, rule, lambdaRandoms);
+	}
+	
+	public SequentialResult runUntilPrecision(int times, double connectivityProb, double packetArrivalProb, double aBound, double bBound, SequentialStoppingRule rule, RandomSource lambdaRandom) {
+		return this.runUntilPrecision(times, connectivityProb, new double[] { packetArrivalProb }, aBound, bBound, rule, new RandomSource[] { lambdaRandom })[0];
+	}
+	
+	/**
+	 * Keeps up to maxInFlight replications running on one completion service,
+	 * handing free places to the unfinished lambdas in turn, and folds each
+	 * lambda's replications into its estimate in replication order as they
+	 * complete. The rule is checked after each replication of that ordered
+	 * prefix, so the stopping point is the same for any thread count and the
+	 * check never waits for a whole wave. Once a lambda stops, its
+	 * replications still queued are cancelled and the running ones told to
+	 * stop, and its places go to the other lambdas.
+	 */
+	private SequentialResult[] runUntilPrecision(int times, double connectivityProb, double[] packetArrivalProbs, double aBound, double bBound, SequentialStoppingRule rule, RandomSource[] lambdaRandoms) {
+		CompletionService<ReplicationResult> completion = new ExecutorCompletionService<ReplicationResult>(this.executor);
+		PrecisionRun[] runs = new PrecisionRun[packetArrivalProbs.length];
+		for (int lambdaIndex = 0; lambdaIndex < packetArrivalProbs.length; lambdaIndex++)
+			runs[lambdaIndex] = new PrecisionRun(packetArrivalProbs[lambdaIndex], lambdaRandoms[lambdaIndex]);
+		Map<Future<ReplicationResult>, PrecisionRun> owners = new HashMap<Future<ReplicationResult>, PrecisionRun>();
+		int inFlight = 0;
+		int nextLambda = 0;
+		try {
+			while (true) {
+				// a full turn without a submission means no lambda can take more
+				for (int skipped = 0; inFlight < this.maxInFlight && skipped < runs.length; nextLambda = (nextLambda + 1) % runs.length) {
+					PrecisionRun run = runs[nextLambda];
+					if (run.converged || !rule.canRun(run.slotsSubmitted, times)) {
+						skipped++;
+						continue;
+					}
+					skipped = 0;
+					Future<ReplicationResult> future = completion.submit(this.replication(times, connectivityProb, run.packetArrivalProb, aBound, bBound, run.futures.size(), run.random.split(), run.stopped));
+					run.futures.add(future);
+					run.slotsSubmitted += times;
+					owners.put(future, run);
+					inFlight++;
+				}
+				if (inFlight == 0)
+					break;
+				Future<ReplicationResult> done = completion.take();
+				inFlight--;
+				PrecisionRun run = owners.remove(done);
+				// replications of a lambda that has stopped may have been cancelled
+				if (run.converged)
+					continue;
+				run.add(done.get(), rule);
+				if (run.converged)
+					run.stop();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for replications", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Replication failed", e.getCause());
+		} finally {
+			for (PrecisionRun run : runs)
+				run.stop();
+		}
+		SequentialResult[] results = new SequentialResult[runs.length];
+		for (int lambdaIndex = 0; lambdaIndex < runs.length; lambdaIndex++)
+			results[lambdaIndex] = runs[lambdaIndex].result(times);
+		return results;
+	}
+	
+	/**
+	 * Folds the average occupancies of one row of results, in replication
+	 * order, into running statistics for a confidence interval across
+	 * replications. Null entries, left by a cancelled sweep, are skipped.
+	 */
+	public static OnlineStatistics occupancyStatistics(ReplicationResult[] results) {
+		OnlineStatistics statistics = new OnlineStatistics();
+		for (ReplicationResult result : results) {
+			if (result != null)
+				statistics.add(result.getAverageOccupancy());
+		}
+		return statistics;
+	}
+	
+	public long getBaseSeed() {
+		return baseSeed;
+	}
+	
+	ExecutorService getExecutor() {
+		return executor;
+	}
+	
+	public void shutdown() {
+		if (this.ownsExecutor)
+			this.executor.shutdown();
+	}
+	
+	/**
+	 * The replications of one lambda in runUntilPrecision.
+	 */
+	private static class PrecisionRun {
+		
+		private double packetArrivalProb;
+		private RandomSource random;
+		private AtomicBoolean stopped = new AtomicBoolean();
+		private List<Future<ReplicationResult>> futures = new ArrayList<Future<ReplicationResult>>();
+		// Results by replication, null until they complete
+		private List<ReplicationResult> completed = new ArrayList<ReplicationResult>();
+		private List<ReplicationResult> used = new ArrayList<ReplicationResult>();
+		private OnlineStatistics statistics = new OnlineStatistics();
+		private long slotsSubmitted;
+		private boolean converged;
+		
+		private PrecisionRun(double packetArrivalProb, RandomSource random) {
+			this.packetArrivalProb = packetArrivalProb;
+			this.random = random;
+		}
+		
+		/**
+		 * Adds a completed replication and folds in the prefix it completes.
+		 */
+		private void add(ReplicationResult result, SequentialStoppingRule rule) {
+			while (this.completed.size() <= result.getReplication())
+				this.completed.add(null);
+			this.completed.set(result.getReplication(), result);
+			while (!this.converged && this.used.size() < this.completed.size() && this.completed.get(this.used.size()) != null) {
+				ReplicationResult next = this.completed.get(this.used.size());
+				this.used.add(next);
+				this.statistics.add(next.getAverageOccupancy());
+				this.converged = rule.isSatisfied(this.statistics);
+			}
+		}
+		
+		private void stop() {
+			this.stopped.set(true);
+			for (Future<ReplicationResult> future : this.futures)
+				future.cancel(true);
+		}
+		
+		private SequentialResult result(int times) {
+			return new SequentialResult(this.packetArrivalProb, this.used, this.statistics, this.converged, ((long) this.used.size()) * times);
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package simproject;
+
+public class RoundRobinSingleServerPolicy implements SchedulingPolicy {
+	
+	public static final String NAME = "round-robin-single";
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public void schedule(Simulator simulator) {
+		simulator.scheduleRoundRobinSingleServer();
+	}
+}
@@ -0,0 +1,24 @@
+package simproject;
+
+/**
+ * One draw and one comparison at a time. Always available.
+ */
+public class ScalarSlotKernel implements SlotKernel {
+	
+	public static final String NAME = "scalar";
+	
+	@Override
+	public String getName() {
+		return NAME;
+	}
+	
+	@Override
+	public void fillConnectivity(ConnectivityMatrix connectivity, double prob, RandomSource random) {
+		connectivity.fill(prob, random);
+	}
+	
+	@Override
+	public int nextArrivals(CorrelatedUniformRandom generator, double prob, boolean correlated, int numberOfQueues, long[] mask) {
+		return generator.nextArrivals(prob, correlated, numberOfQueues, mask);
+	}
+}
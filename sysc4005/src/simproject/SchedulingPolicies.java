@@ -0,0 +1,60 @@
+package simproject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Registry of scheduling policies by name.
+ */
+public final class SchedulingPolicies {
+	
+	private static final LinkedHashMap<String, SchedulingPolicy> policies = new LinkedHashMap<String, SchedulingPolicy>();
+	
+	static {
+		register(new RandomSingleServerPolicy());
+		register(new RoundRobinSingleServerPolicy());
+		register(new LCQSingleServerPolicy());
+		register(new RandomPolicy());
+		register(new ASLCQPolicy());
+		register(new LCSFLCQPolicy());
+		register(new MaxWeightGreedyPolicy());
+		register(new MaxWeightPolicy());
+	}
+	
+	// don't instantiate
+	private SchedulingPolicies() { }
+	
+	public static synchronized void register(SchedulingPolicy policy) {
+		policies.put(policy.getName(), policy);
+	}
+	
+	/**
+	 * Returns the policy registered under name.
+	 * @throws IllegalArgumentException if no policy has that name
+	 */
+	public static synchronized SchedulingPolicy forName(String name) {
+		SchedulingPolicy policy = policies.get(name);
+		if (policy == null)
+			throw new IllegalArgumentException("Unknown scheduling policy " + name + ", expected one of " + policies.keySet());
+		return policy;
+	}
+	
+	/**
+	 * Resolves a comma separated list of policy names.
+	 */
+	public static List<SchedulingPolicy> forNames(String names) {
+		List<SchedulingPolicy> resolved = new ArrayList<SchedulingPolicy>();
+		for (String name : names.split(","))
+			resolved.add(forName(name.trim()));
+		return resolved;
+	}
+	
+	public static synchronized List<String> getNames() {
+		return new ArrayList<String>(policies.keySet());
+	}
+	
+	public static SchedulingPolicy getDefault() {
+		return forName(LCSFLCQPolicy.NAME);
+	}
+}
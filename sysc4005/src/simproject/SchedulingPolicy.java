@@ -0,0 +1,12 @@
+package simproject;
+
+/**
+ * Assigns idle servers to queues for one time slot. Policies hold no
+ * per-simulation state, so one instance can drive any number of simulators.
+ */
+public interface SchedulingPolicy {
+	
+	public String getName();
+	
+	public void schedule(Simulator simulator);
+}
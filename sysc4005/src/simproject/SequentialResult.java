@@ -0,0 +1,46 @@
+package simproject;
+
+import java.util.List;
+
+public class SequentialResult {
+	
+	private double packetArrivalProb;
+	private List<ReplicationResult> replications;
+	private OnlineStatistics occupancyStatistics;
+	private boolean converged;
+	private long totalSlots;
+	
+	public SequentialResult(double packetArrivalProb, List<ReplicationResult> replications, OnlineStatistics occupancyStatistics, boolean converged, long totalSlots) {
+		this.packetArrivalProb = packetArrivalProb;
+		this.replications = replications;
+		this.occupancyStatistics = occupancyStatistics;
+		this.converged = converged;
+		this.totalSlots = totalSlots;
+	}
+
+	public double getPacketArrivalProb() {
+		return packetArrivalProb;
+	}
+
+	/**
+	 * Returns the replications the estimate is based on, in replication order.
+	 */
+	public List<ReplicationResult> getReplications() {
+		return replications;
+	}
+
+	public OnlineStatistics getOccupancyStatistics() {
+		return occupancyStatistics;
+	}
+
+	/**
+	 * Returns false when the slot cap was reached before the precision target.
+	 */
+	public boolean isConverged() {
+		return converged;
+	}
+
+	public long getTotalSlots() {
+		return totalSlots;
+	}
+}
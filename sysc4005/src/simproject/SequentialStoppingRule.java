@@ -0,0 +1,49 @@
+package simproject;
+
+/**
+ * Stops a sequence of replications once the confidence interval half-width
+ * on the mean falls below relativePrecision times the mean, or once the next
+ * replication would exceed maxTotalSlots.
+ */
+public class SequentialStoppingRule {
+	
+	private double relativePrecision;
+	private double confidence;
+	private int minReplications;
+	private long maxTotalSlots;
+	
+	public SequentialStoppingRule(double relativePrecision, double confidence, int minReplications, long maxTotalSlots) {
+		if (!(relativePrecision > 0.0)) throw new IllegalArgumentException("Relative precision must be positive");
+		if (minReplications < 2) throw new IllegalArgumentException("At least two replications are needed for an interval");
+		this.relativePrecision = relativePrecision;
+		this.confidence = confidence;
+		this.minReplications = minReplications;
+		this.maxTotalSlots = maxTotalSlots;
+	}
+	
+	public boolean isSatisfied(OnlineStatistics statistics) {
+		if (statistics.getCount() < this.minReplications)
+			return false;
+		return statistics.getHalfWidth(this.confidence) <= this.relativePrecision * Math.abs(statistics.getMean());
+	}
+	
+	public boolean canRun(long slotsUsed, int times) {
+		return slotsUsed + times <= this.maxTotalSlots;
+	}
+
+	public double getRelativePrecision() {
+		return relativePrecision;
+	}
+
+	public double getConfidence() {
+		return confidence;
+	}
+
+	public int getMinReplications() {
+		return minReplications;
+	}
+
+	public long getMaxTotalSlots() {
+		return maxTotalSlots;
+	}
+}
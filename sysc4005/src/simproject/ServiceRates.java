@@ -0,0 +1,82 @@
+package simproject;
+
+/**
+ * How many packets a server takes from the queue it serves in one slot:
+ * the rate set for that (queue, server) pair, or else the server's capacity.
+ * Every server starts with a capacity of one packet and no pair rates, which
+ * is the original one-packet-per-server slot.
+ */
+public class ServiceRates {
+	
+	private int numberOfQueues;
+	private int numberOfServers;
+	private int[] capacities;
+	// rates[q * numberOfServers + s], 0 where the capacity applies; null until a rate is set
+	private int[] rates;
+	// Capacities and pair rates above one; zero means every quota is one packet
+	private int nonUnitQuotas;
+	
+	public ServiceRates(int noQueues, int noServers) {
+		this.numberOfQueues = noQueues;
+		this.numberOfServers = noServers;
+		this.capacities = new int[noServers];
+		for (int s = 0; s < noServers; s++)
+			this.capacities[s] = 1;
+		this.rates = null;
+		this.nonUnitQuotas = 0;
+	}
+	
+	/**
+	 * @throws IllegalArgumentException if capacity is less than one
+	 */
+	public void setCapacity(int serverIndex, int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Capacity must be at least one packet per slot");
+		this.countQuotaChange(this.capacities[serverIndex], capacity);
+		this.capacities[serverIndex] = capacity;
+	}
+	
+	public int getCapacity(int serverIndex) {
+		return capacities[serverIndex];
+	}
+	
+	/**
+	 * Overrides the capacity of serverIndex while it serves queueIndex. To keep
+	 * a server from serving a queue at all, leave the pair unconnected.
+	 *
+	 * @throws IllegalArgumentException if rate is less than one
+	 */
+	public void setRate(int queueIndex, int serverIndex, int rate) {
+		if (rate < 1)
+			throw new IllegalArgumentException("Rate must be at least one packet per slot");
+		if (this.rates == null)
+			this.rates = new int[this.numberOfQueues * this.numberOfServers];
+		int pair = queueIndex * this.numberOfServers + serverIndex;
+		this.countQuotaChange(this.rates[pair], rate);
+		this.rates[pair] = rate;
+	}
+	
+	private void countQuotaChange(int oldQuota, int newQuota) {
+		if (oldQuota > 1)
+			this.nonUnitQuotas--;
+		if (newQuota > 1)
+			this.nonUnitQuotas++;
+	}
+	
+	public int getQuota(int queueIndex, int serverIndex) {
+		if (this.rates != null) {
+			int rate = this.rates[queueIndex * this.numberOfServers + serverIndex];
+			if (rate > 0)
+				return rate;
+		}
+		return this.capacities[serverIndex];
+	}
+	
+	/**
+	 * Returns true while no capacity or rate above one packet is set, so that
+	 * every quota is one packet. Setting them back to one restores it.
+	 */
+	public boolean isUnit() {
+		return this.nonUnitQuotas == 0;
+	}
+}
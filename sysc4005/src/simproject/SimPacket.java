@@ -6,14 +6,14 @@ public class SimPacket {
 	public long finishedTime;
 	public long delay;
 	
-	public SimPacket() {
-		this.queuedTime = System.currentTimeMillis();
+	public SimPacket(long queuedSlot) {
+		this.queuedTime = queuedSlot;
 		this.finishedTime = 0;
 		this.delay = 0;
 	}
 	
-	public long finish() {
-		this.finishedTime = System.currentTimeMillis();
+	public long finish(long finishedSlot) {
+		this.finishedTime = finishedSlot;
 		this.delay = this.finishedTime - this.queuedTime;
 		return this.delay;
 	}
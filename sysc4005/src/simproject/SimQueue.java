@@ -1,25 +1,39 @@
 package simproject;
 
+import java.io.IOException;
 import java.util.LinkedList;
 
 public class SimQueue {
 	
+	private static final int INITIAL_CAPACITY = 16;
+	
 	private int queueNumber;
 	private int connections;
 	private int remainingPackets;
 	private long totalOccupancy;
 	private double lastAvgOccupancy;
-	private LinkedList<SimPacket> packets;
+	// Departures since the last resetPacketsServed, kept in counting mode too
+	private long packetsServed;
+	// Arrival slots of the queued packets, oldest at head
+	private long[] arrivalTimes;
+	private int head;
+	// Off in counting mode: only remainingPackets is kept, no arrival slots or delays
+	private boolean delayTracking;
+	private OnlineStatistics delayStatistics;
 	private LinkedList<Long> delayTimes;
 	
 	public SimQueue(int number) {
 		this.queueNumber = number;
 		this.connections = 0;
 		this.remainingPackets = 0;
-		this.packets = new LinkedList<SimPacket>();
-		this.delayTimes = new LinkedList<Long>();
+		this.arrivalTimes = new long[INITIAL_CAPACITY];
+		this.head = 0;
+		this.delayTracking = true;
+		this.delayTimes = null;
+		this.delayStatistics = new OnlineStatistics();
 		this.totalOccupancy = 0;
 		this.lastAvgOccupancy = 0;
+		this.packetsServed = 0;
 	}
 	
 	public void incrementConnection() {
@@ -34,27 +48,111 @@ public class SimQueue {
 		this.connections = 0;
 	}
 	
+	public void setConnections(int connections) {
+		this.connections = connections;
+	}
+	
 	public void packetProcessed() {
+		if (this.delayTracking)
+			this.head = (this.head + 1) & (this.arrivalTimes.length - 1);
 		this.remainingPackets--;
+		this.packetsServed++;
 	}
 
 	// This function allows adding 0
 	public void addPacket(SimPacket p) {
+		this.addArrival(p.queuedTime);
+	}
+	
+	public void addArrival(long arrivalSlot) {
+		if (!this.delayTracking) {
+			this.remainingPackets++;
+			return;
+		}
+		if (this.remainingPackets == this.arrivalTimes.length)
+			this.grow();
+		this.arrivalTimes[(this.head + this.remainingPackets) & (this.arrivalTimes.length - 1)] = arrivalSlot;
 		this.remainingPackets++;
-		this.packets.add(p);
 	}
 	
-	public SimPacket popPacket() {
+	/**
+	 * Removes the oldest packet and returns its delay in slots, or 0 in
+	 * counting mode.
+	 */
+	public long popPacket(long currentSlot) {
+		this.packetsServed++;
+		if (!this.delayTracking) {
+			this.remainingPackets--;
+			return 0;
+		}
+		long delay = currentSlot - this.arrivalTimes[this.head];
+		this.head = (this.head + 1) & (this.arrivalTimes.length - 1);
 		this.remainingPackets--;
-		SimPacket poppedPacket = this.packets.poll();
-		this.delayTimes.add(poppedPacket.finish());
-		return poppedPacket;
+		this.recordDelay(delay);
+		return delay;
+	}
+	
+	/**
+	 * Removes up to count of the oldest packets in one call, recording each
+	 * delay, and returns how many were removed.
+	 */
+	public int popPackets(int count, long currentSlot) {
+		int popped = Math.min(count, this.remainingPackets);
+		this.packetsServed += popped;
+		if (!this.delayTracking) {
+			this.remainingPackets -= popped;
+			return popped;
+		}
+		int mask = this.arrivalTimes.length - 1;
+		for (int i = 0; i < popped; i++) {
+			this.recordDelay(currentSlot - this.arrivalTimes[this.head]);
+			this.head = (this.head + 1) & mask;
+		}
+		this.remainingPackets -= popped;
+		return popped;
+	}
+	
+	private void grow() {
+		long[] grown = new long[this.arrivalTimes.length << 1];
+		int tail = this.arrivalTimes.length - this.head;
+		System.arraycopy(this.arrivalTimes, this.head, grown, 0, tail);
+		System.arraycopy(this.arrivalTimes, 0, grown, tail, this.head);
+		this.arrivalTimes = grown;
+		this.head = 0;
+	}
+	
+	private void recordDelay(long delay) {
+		this.delayStatistics.add(delay);
+		if (this.delayTimes != null)
+			this.delayTimes.add(delay);
+	}
+	
+	public void resetDelayStatistics() {
+		this.delayStatistics.reset();
+		if (this.delayTimes != null)
+			this.delayTimes.clear();
 	}
 	
 	public void recordOccupancy() {
 		this.totalOccupancy += this.remainingPackets;
 	}
 	
+	public void resetOccupancy() {
+		this.totalOccupancy = 0;
+	}
+	
+	public void resetPacketsServed() {
+		this.packetsServed = 0;
+	}
+	
+	/**
+	 * Returns the packets served since the last resetPacketsServed, with or
+	 * without delay tracking.
+	 */
+	public long getPacketsServed() {
+		return this.packetsServed;
+	}
+	
 	public double calculateAvgOccupancy(int times) {
 		this.lastAvgOccupancy = (((double) this.totalOccupancy) / ((double) times));
 		return this.lastAvgOccupancy;
@@ -72,13 +170,113 @@ public class SimQueue {
 		return remainingPackets;
 	}
 	
+	/**
+	 * Keeps every delay in a list for {@link #getDelayTimes()}. Off by default,
+	 * since the list grows with every departure.
+	 */
+	public void setDelayTimesRecorded(boolean recorded) {
+		if (recorded && this.delayTimes == null)
+			this.delayTimes = new LinkedList<Long>();
+		else if (!recorded)
+			this.delayTimes = null;
+	}
+	
+	public boolean isDelayTimesRecorded() {
+		return this.delayTimes != null;
+	}
+	
+	/**
+	 * Switches between keeping the arrival slot of every queued packet and
+	 * counting mode, where only the number of queued packets is kept and no
+	 * delays are recorded. Tracking can only be turned back on while the
+	 * queue is empty, since the arrival slots of the packets already queued
+	 * are unknown.
+	 */
+	public void setDelayTracking(boolean delayTracking) {
+		if (delayTracking && !this.delayTracking && this.remainingPackets > 0)
+			throw new IllegalStateException("Cannot track delays of " + this.remainingPackets + " packets queued in counting mode");
+		if (delayTracking && !this.delayTracking)
+			this.head = 0;
+		this.delayTracking = delayTracking;
+	}
+	
+	public boolean isDelayTracking() {
+		return this.delayTracking;
+	}
+	
+	/**
+	 * Returns the recorded delays. Turn on
+	 * {@link #setDelayTimesRecorded(boolean)} before the run; an empty list
+	 * would be indistinguishable from a queue that never sent a packet.
+	 *
+	 * @throws IllegalStateException if delays are not being recorded
+	 */
 	public LinkedList<Long> getDelayTimes() {
+		if (this.delayTimes == null)
+			throw new IllegalStateException("Delay times are not recorded, call setDelayTimesRecorded(true) first");
 		return this.delayTimes;
 	}
+	
+	public OnlineStatistics getDelayStatistics() {
+		return delayStatistics;
+	}
+	
+	public long getDelayCount() {
+		return this.delayStatistics.getCount();
+	}
+	
+	public double getMeanDelay() {
+		return this.delayStatistics.getMean();
+	}
+	
+	public double getDelayVariance() {
+		return this.delayStatistics.getVariance();
+	}
+	
+	public long getMinDelay() {
+		return (long) this.delayStatistics.getMin();
+	}
+	
+	public long getMaxDelay() {
+		return (long) this.delayStatistics.getMax();
+	}
 
 	public double getLastAvgOccupancy() {
 		return lastAvgOccupancy;
 	}
 	
 	
+	
+	/**
+	 * Saves the queue contents and statistics. Recorded delay lists are not
+	 * saved.
+	 */
+	void writeState(CheckpointWriter out) throws IOException {
+		out.putBoolean(this.delayTracking);
+		out.putInt(this.remainingPackets);
+		if (this.delayTracking) {
+			for (int i = 0; i < this.remainingPackets; i++)
+				out.putLong(this.arrivalTimes[(this.head + i) & (this.arrivalTimes.length - 1)]);
+		}
+		out.putLong(this.totalOccupancy);
+		out.putLong(this.packetsServed);
+		this.delayStatistics.writeState(out);
+	}
+	
+	void readState(CheckpointReader in) throws IOException {
+		this.delayTracking = in.getBoolean();
+		this.remainingPackets = in.getInt();
+		this.head = 0;
+		if (this.delayTracking) {
+			int capacity = INITIAL_CAPACITY;
+			while (capacity < this.remainingPackets)
+				capacity <<= 1;
+			this.arrivalTimes = new long[capacity];
+			for (int i = 0; i < this.remainingPackets; i++)
+				this.arrivalTimes[i] = in.getLong();
+		}
+		this.totalOccupancy = in.getLong();
+		this.packetsServed = in.getLong();
+		this.delayStatistics.readState(in);
+	}
 }
@@ -1,18 +1,25 @@
 package simproject;
 
+import java.io.IOException;
 import java.util.LinkedList;
 
 public class SimServer {
 	private int serverNumber;
 	private int connections;
 	private LinkedList<Integer> queuesServed;
+	private long packetsServed;
+	private int lastServedQueue;
 	private boolean isBusy;
+	private int capacity;
 	
 	public SimServer(int number) {
 		this.serverNumber = number;
 		this.connections = 0;
 		this.isBusy = false;
-		this.queuesServed = new LinkedList<Integer>();
+		this.queuesServed = null;
+		this.packetsServed = 0;
+		this.lastServedQueue = 0;
+		this.capacity = 1;
 	}
 	
 	public void incrementConnection() {
@@ -27,8 +34,21 @@ public class SimServer {
 		this.connections = 0;
 	}
 	
+	public void setConnections(int connections) {
+		this.connections = connections;
+	}
+	
 	public void addServedQueue(int queueNumber) {
-		this.queuesServed.add(queueNumber);
+		this.addServedPackets(queueNumber, 1);
+	}
+	
+	public void addServedPackets(int queueNumber, int packets) {
+		this.packetsServed += packets;
+		this.lastServedQueue = queueNumber;
+		if (this.queuesServed != null) {
+			for (int i = 0; i < packets; i++)
+				this.queuesServed.add(queueNumber);
+		}
 	}
 
 	public boolean isBusy() {
@@ -51,9 +71,57 @@ public class SimServer {
 		return connections;
 	}
 
+	/**
+	 * Packets per slot this server can serve.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public void setCapacity(int capacity) {
+		this.capacity = capacity;
+	}
+
+	public long getPacketsServed() {
+		return packetsServed;
+	}
+
+	public int getLastServedQueue() {
+		return lastServedQueue;
+	}
+	
+	/**
+	 * Keeps every served queue number in a list for {@link #getQueuesServed()}.
+	 * Off by default, since the list grows with every packet served.
+	 */
+	public void setQueuesServedRecorded(boolean recorded) {
+		if (recorded && this.queuesServed == null)
+			this.queuesServed = new LinkedList<Integer>();
+		else if (!recorded)
+			this.queuesServed = null;
+	}
+
+	/**
+	 * Returns the served queue numbers. Turn on
+	 * {@link #setQueuesServedRecorded(boolean)} before the run; an empty list
+	 * would be indistinguishable from a server that never served.
+	 *
+	 * @throws IllegalStateException if served queues are not being recorded
+	 */
 	public LinkedList<Integer> getQueuesServed() {
+		if (this.queuesServed == null)
+			throw new IllegalStateException("Served queues are not recorded, call setQueuesServedRecorded(true) first");
 		return queuesServed;
 	}
 	
+	
+	void writeState(CheckpointWriter out) throws IOException {
+		out.putLong(this.packetsServed);
+		out.putInt(this.lastServedQueue);
+	}
+	
+	void readState(CheckpointReader in) throws IOException {
+		this.packetsServed = in.getLong();
+		this.lastServedQueue = in.getInt();
+	}
 }
-
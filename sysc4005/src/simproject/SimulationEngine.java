@@ -0,0 +1,62 @@
+package simproject;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * What the replication and sweep drivers need from a simulation engine.
+ * Simulator and ArraySimulator built with the same seed and policy produce the
+ * same statistics; engines that skip work, such as ArraySimulator with idle
+ * skipping, match them in distribution only. ArraySimulator with worker
+ * threads draws its traffic in blocks of queues, so it only matches itself.
+ */
+public interface SimulationEngine {
+	
+	public void setSchedulingPolicy(SchedulingPolicy schedulingPolicy);
+	
+	public void setWarmupDetection(boolean warmupDetection);
+	
+	/**
+	 * Sets the kernel used for the traffic of runSimulation.
+	 */
+	public void setSlotKernel(SlotKernel slotKernel);
+	
+	/**
+	 * Pre-generates the traffic of runSimulation blockSlots slots at a time,
+	 * optionally on a producer thread. Zero turns batching off.
+	 */
+	public void setTrafficBatching(int blockSlots, boolean producerThread);
+	
+	/**
+	 * Gives every queue its own arrival chain in runSimulation.
+	 * 
+	 * @see TrafficGenerator#setPerQueueArrivals(boolean)
+	 */
+	public void setPerQueueArrivals(boolean perQueueArrivals);
+	
+	/**
+	 * Lets serverIndex serve up to capacity packets of one queue per slot.
+	 */
+	public void setServerCapacity(int serverIndex, int capacity);
+	
+	/**
+	 * Overrides the capacity of serverIndex while it serves queueIndex.
+	 */
+	public void setServiceRate(int queueIndex, int serverIndex, int rate);
+	
+	/**
+	 * Makes runSimulation stop with a CancellationException once cancelled is
+	 * set or the running thread is interrupted, which is checked every
+	 * Simulator.CANCEL_CHECK_INTERVAL slots. With null only interrupts are.
+	 */
+	public void setCancellation(AtomicBoolean cancelled);
+	
+	public void runSimulation(int times, double connectivityProb, double packetArrivalProb, double aBound, double bBound);
+	
+	public double calculateAvgOccupancy(int times);
+	
+	public double calculateOccupancyHalfWidth(double confidence);
+	
+	public long getTotalPacketsArrived();
+	
+	public long getTotalPacketsAttempted();
+}
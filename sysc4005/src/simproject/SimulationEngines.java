@@ -0,0 +1,55 @@
+package simproject;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Creates simulation engines by name.
+ */
+public final class SimulationEngines {
+	
+	public static final String OBJECTS = "objects";
+	public static final String ARRAYS = "arrays";
+	public static final String EVENTS = "events";
+	public static final String PARALLEL = "parallel";
+	
+	// don't instantiate
+	private SimulationEngines() { }
+	
+	/**
+	 * The parallel engine gets one worker thread per processor; use the
+	 * overload with workerThreads when several engines run at once.
+	 *
+	 * @throws IllegalArgumentException if no engine has that name
+	 */
+	public static SimulationEngine create(String name, int noQueues, int noServers, RandomSource random) {
+		return create(name, noQueues, noServers, random, Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * @param workerThreads threads of the parallel engine, ignored by the others
+	 * @throws IllegalArgumentException if no engine has that name
+	 */
+	public static SimulationEngine create(String name, int noQueues, int noServers, RandomSource random, int workerThreads) {
+		switch (name) {
+		case OBJECTS:
+			return new Simulator(noQueues, noServers, random);
+		case ARRAYS:
+			return new ArraySimulator(noQueues, noServers, random);
+		case EVENTS:
+			ArraySimulator simulator = new ArraySimulator(noQueues, noServers, random);
+			simulator.setIdleSkipping(true);
+			return simulator;
+		case PARALLEL:
+			ArraySimulator partitioned = new ArraySimulator(noQueues, noServers, random);
+			partitioned.setWorkerThreads(workerThreads);
+			return partitioned;
+		default:
+			throw new IllegalArgumentException("Unknown engine " + name + ", expected one of " + getNames());
+		}
+	}
+	
+	public static List<String> getNames() {
+		return Arrays.asList(OBJECTS, ARRAYS, EVENTS, PARALLEL);
+	}
+}
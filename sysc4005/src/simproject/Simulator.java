@@ -1,11 +1,14 @@
 package simproject;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
 import java.util.HashSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public class Simulator {
+public class Simulator implements SimulationEngine {
 	
 	public static final int NUMBER_OF_QUEUES = 5;
 	public static final int NUMBER_OF_SERVERS = 3;
@@ -13,30 +16,64 @@ public class Simulator {
 	public static final double PACKET_ARRIVAL_PROB = 0.5;
 	public static final double CORRELATION_FACTOR_A = -0.5;
 	public static final double CORRELATION_FACTOR_B = 0.5;
+	public static final int DEFAULT_OCCUPANCY_BATCH_SIZE = 1000;
+	public static final int DEFAULT_MAX_WARMUP_SLOTS = 20000;
+	public static final int WARMUP_CHECK_INTERVAL = 100;
+	public static final int CANCEL_CHECK_INTERVAL = 1024;
 	
 	private int numberOfQueues;
 	private int numberOfServers;
-	private Connectivity[][] connectivityTable;
+	private ConnectivityMatrix connectivity;
+	// Queue and server indices in ascending order of connections, ties by index
+	private ConnectionOrder queueOrder;
+	private ConnectionOrder serverOrder;
+	private BacklogMatching backlogMatching;
+	private ServiceRates serviceRates;
+	private boolean delayTracking;
+	private long[] busyServers;
+	private long[] selectedServers;
+	private long[] arrivalMask;
 	private SimQueue[] queueList;
 	private SimServer[] serverList;
 	private CorrelatedUniformRandom packetRandomGenerator;
 	public long totalPacketsArrived;
 	public long totalPacketsAttempted;
 	private int roundRobinQueueIndex;
+	private RandomSource random;
+	private SchedulingPolicy schedulingPolicy;
+	private SlotKernel slotKernel;
+	private int trafficBlockSlots;
+	private boolean trafficProducer;
+	private boolean perQueueArrivals;
+	private AtomicBoolean cancellation;
+	// Index of the slot being simulated; arrivals before the first slot are stamped 0
+	private long currentTimeSlot;
+	private long recordedSlots;
+	private BatchMeans occupancyBatchMeans;
+	private double lastSlotOccupancy;
+	private boolean warmupDetection;
+	private int maxWarmupSlots;
+	private long warmupSlots;
+	private WarmupDetector warmupDetector;
+	private boolean warmingUp;
+	private Path checkpointPath;
+	private int checkpointInterval;
 	
-	public Simulator(int noQueues, int noServers) {
+	public Simulator(int noQueues, int noServers, RandomSource random) {
 		this.numberOfQueues = noQueues;
 		this.numberOfServers = noServers;
 		this.totalPacketsArrived = 0;
 		this.totalPacketsAttempted = 0;
 		this.roundRobinQueueIndex = 0;
-		
-		this.connectivityTable = new Connectivity[noQueues][noServers];
-		for (int q = 0; q < noQueues; q++) {
-			for (int s = 0; s < noServers; s++) {
-				this.connectivityTable[q][s] = new Connectivity(q + 1, s + 1, Connectivity.NOT_CONNECTED);
-			}
-		}
+		this.random = random;
+		this.delayTracking = true;
+		this.allocateTopology();
+		this.schedulingPolicy = SchedulingPolicies.getDefault();
+		this.slotKernel = SlotKernels.getDefault();
+		this.occupancyBatchMeans = new BatchMeans(DEFAULT_OCCUPANCY_BATCH_SIZE);
+		this.warmupDetection = false;
+		this.maxWarmupSlots = DEFAULT_MAX_WARMUP_SLOTS;
+		this.warmupDetector = new WarmupDetector();
 		
 		this.queueList = new SimQueue[noQueues];
 		for (int sq = 0; sq < noQueues; sq++)
@@ -45,6 +82,31 @@ public class Simulator {
 		this.serverList = new SimServer[noServers];
 		for (int server = 0; server < noServers; server++)
 			this.serverList[server] = new SimServer(server + 1);
+		this.refreshConnectionCounts();
+	}
+
+	/**
+	 * Sizes everything indexed by queue or server for the current counts.
+	 * Service rates and capacities go back to one packet per slot.
+	 */
+	private void allocateTopology() {
+		this.connectivity = new ConnectivityMatrix(this.numberOfQueues, this.numberOfServers);
+		this.queueOrder = new ConnectionOrder(this.numberOfQueues, this.numberOfServers);
+		this.serverOrder = new ConnectionOrder(this.numberOfServers, this.numberOfQueues);
+		this.backlogMatching = new BacklogMatching(this.numberOfQueues, this.numberOfServers);
+		this.serviceRates = new ServiceRates(this.numberOfQueues, this.numberOfServers);
+		this.backlogMatching.setServiceRates(this.serviceRates);
+		this.busyServers = new long[ConnectivityMatrix.wordsFor(this.numberOfServers)];
+		this.selectedServers = new long[ConnectivityMatrix.wordsFor(this.numberOfServers)];
+		this.arrivalMask = new long[ConnectivityMatrix.wordsFor(this.numberOfQueues)];
+	}
+
+	public Simulator(int noQueues, int noServers, long seed) {
+		this(noQueues, noServers, new XoshiroRandomSource(seed));
+	}
+
+	public Simulator(int noQueues, int noServers) {
+		this(noQueues, noServers, new XoshiroRandomSource());
 	}
 
 	public Simulator() {
@@ -52,30 +114,91 @@ public class Simulator {
 	}
 	
 	public void updateConnectivities(double prob) {
-		
-		for (SimServer server : this.serverList)
-			server.resetConnections();
-		for (SimQueue queue : this.queueList)
-			queue.resetConnections();
-		
+		this.connectivity.fill(prob, this.random);
+		this.refreshConnectionCounts();
+	}
+	
+	private void refreshConnectionCounts() {
+		int[] queueCounts = this.queueOrder.getCounts();
 		for (int q = 0; q < this.numberOfQueues; q++) {
-			for (int s = 0; s < this.numberOfServers; s++) {
-				if (StdRandom.bernoulli(prob) == true) {
-					this.connectivityTable[q][s].status = 1;
-					this.serverList[s].incrementConnection();
-					this.queueList[q].incrementConnection();
-				}
-				else
-					this.connectivityTable[q][s].status = 0;
+			queueCounts[q] = this.connectivity.countQueueConnections(q);
+			this.queueList[q].setConnections(queueCounts[q]);
+		}
+		int[] serverCounts = this.serverOrder.getCounts();
+		for (int s = 0; s < this.numberOfServers; s++)
+			serverCounts[s] = 0;
+		this.connectivity.countServerConnections(serverCounts);
+		for (int s = 0; s < this.numberOfServers; s++)
+			this.serverList[s].setConnections(serverCounts[s]);
+		this.queueOrder.invalidate();
+		this.serverOrder.invalidate();
+	}
+	
+	/**
+	 * Takes the server's quota for this queue in one batch.
+	 */
+	private void servePackets(int queueIndex, int serverIndex) {
+		int served = this.queueList[queueIndex].popPackets(this.serviceRates.getQuota(queueIndex, serverIndex), this.currentTimeSlot);
+		this.serverList[serverIndex].addServedPackets(queueIndex + 1, served);
+		this.serverList[serverIndex].goBusy();
+		this.busyServers[serverIndex >>> 6] |= (1L << serverIndex);
+	}
+	
+	private boolean hasIdleConnectedServer(int queueIndex) {
+		for (int w = 0; w < this.busyServers.length; w++) {
+			if ((this.connectivity.getWord(queueIndex, w) & ~this.busyServers[w]) != 0)
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Serves queueIndex from every selected, idle, connected server in
+	 * ascending server order until the queue runs dry. Returns the number of
+	 * servers that went busy.
+	 */
+	private int serveFromSelectedServers(int queueIndex) {
+		int served = 0;
+		SimQueue queue = this.queueList[queueIndex];
+		for (int w = 0; w < this.selectedServers.length && queue.getRemainingPackets() > 0; w++) {
+			long eligible = this.connectivity.getWord(queueIndex, w) & this.selectedServers[w] & ~this.busyServers[w];
+			while (eligible != 0 && queue.getRemainingPackets() > 0) {
+				this.servePackets(queueIndex, (w << 6) + Long.numberOfTrailingZeros(eligible));
+				eligible &= eligible - 1;
+				served++;
 			}
 		}
+		return served;
 	}
 	
 	public void recordOccupancies() {
-		for (SimQueue queue : this.queueList)
+		long slotOccupancy = 0;
+		for (SimQueue queue : this.queueList) {
 			queue.recordOccupancy();
+			slotOccupancy += queue.getRemainingPackets();
+		}
+		this.lastSlotOccupancy = ((double) slotOccupancy) / this.numberOfQueues;
+		this.occupancyBatchMeans.add(this.lastSlotOccupancy);
+		this.recordedSlots++;
+	}
+	
+	/**
+	 * Discards everything recorded so far while keeping the queue contents,
+	 * so that statistics restart from the current state.
+	 */
+	public void clearStatistics() {
+		for (SimQueue queue : this.queueList) {
+			queue.resetOccupancy();
+			queue.resetPacketsServed();
+			queue.resetDelayStatistics();
+		}
+		this.occupancyBatchMeans.reset();
+		this.recordedSlots = 0;
+		this.totalPacketsArrived = 0;
+		this.totalPacketsAttempted = 0;
 	}
 	
+	@Override
 	public double calculateAvgOccupancy(int times) {
 		double netAvgOccupancy = 0;
 		for (SimQueue queue : this.queueList)
@@ -83,119 +206,108 @@ public class Simulator {
 		return (netAvgOccupancy / this.numberOfQueues);
 	}
 	
+	/**
+	 * Returns the mean delay in slots over every packet served so far.
+	 *
+	 * @throws IllegalStateException in counting mode, where no delays are kept
+	 */
+	public double calculateAvgDelay() {
+		OnlineStatistics delays = new OnlineStatistics();
+		for (SimQueue queue : this.queueList) {
+			if (!queue.isDelayTracking())
+				throw new IllegalStateException("Delays are not tracked, call setDelayTracking(true) before the run");
+			delays.merge(queue.getDelayStatistics());
+		}
+		return delays.getMean();
+	}
+	
 	public HashSet<Integer> selectRandomServers() {
 		HashSet<Integer> chosenServers = new HashSet<Integer>();
-		for (int i = 0; i < this.numberOfServers; i++) {
-			chosenServers.add((int) (1 + Math.random() * Simulator.NUMBER_OF_SERVERS));
+		this.selectRandomServers(this.selectedServers);
+		for (int s = 0; s < this.numberOfServers; s++) {
+			if ((this.selectedServers[s >>> 6] & (1L << s)) != 0)
+				chosenServers.add(s + 1);
 		}
 		return chosenServers;
 	}
 	
-	public void scheduleRandomlySingleServer() {
-		HashSet<Integer> selectedServers = this.selectRandomServers();
-		int queueIndex = (int) (Math.random() * this.numberOfQueues);
-		for (int server : selectedServers) {
-			if ((this.connectivityTable[queueIndex][server - 1].status == 1) && (this.queueList[queueIndex].getRemainingPackets() > 0) && (!this.serverList[server - 1].isBusy())) {
-				//System.out.println("Found connection: queue " + (q + 1) + " to server " + server);
-				this.queueList[queueIndex].popPacket();
-				this.serverList[server - 1].addServedQueue(queueIndex + 1);
-				this.serverList[server - 1].goBusy();
+	/**
+	 * Draws numberOfServers servers with replacement into mask and returns how
+	 * many distinct servers were chosen.
+	 */
+	public int selectRandomServers(long[] mask) {
+		for (int w = 0; w < mask.length; w++)
+			mask[w] = 0;
+		int chosen = 0;
+		for (int i = 0; i < this.numberOfServers; i++) {
+			int server = this.random.nextInt(this.numberOfServers);
+			long bit = 1L << server;
+			if ((mask[server >>> 6] & bit) == 0) {
+				mask[server >>> 6] |= bit;
+				chosen++;
 			}
 		}
+		return chosen;
+	}
+	
+	public void scheduleRandomlySingleServer() {
+		this.selectRandomServers(this.selectedServers);
+		int queueIndex = this.random.nextInt(this.numberOfQueues);
+		this.serveFromSelectedServers(queueIndex);
 	}
 	
 	public void scheduleRoundRobinSingleServer() {
 		int queueIndex = (this.roundRobinQueueIndex + 1) % this.numberOfQueues;
 		this.roundRobinQueueIndex = queueIndex;
-		if ((this.connectivityTable[queueIndex][0].status == 1) && (this.queueList[queueIndex].getRemainingPackets() > 0)) {
-			this.queueList[queueIndex].popPacket();
-			this.serverList[0].addServedQueue(queueIndex + 1);
-			this.serverList[0].goBusy();
-		}
+		if (this.connectivity.isConnected(queueIndex, 0) && (this.queueList[queueIndex].getRemainingPackets() > 0))
+			this.servePackets(queueIndex, 0);
 	}
 	
 	public void scheduleLCQSingleServer() {
-		SimQueue[] sortedQueues = this.sortQueueList();
-		for (SimQueue queue : sortedQueues) {
-			int queueIndex = queue.getQueueNumber() - 1;
-			if ((this.connectivityTable[queueIndex][0].status == 1) && (this.queueList[queueIndex].getRemainingPackets() > 0)) {
-				this.queueList[queueIndex].popPacket();
-				this.serverList[0].addServedQueue(queueIndex + 1);
-				this.serverList[0].goBusy();
+		int[] queueOrder = this.queueOrder.getOrder();
+		for (int sortedQueueIndex = 0; sortedQueueIndex < this.numberOfQueues; sortedQueueIndex++) {
+			int queueIndex = queueOrder[sortedQueueIndex];
+			if (this.connectivity.isConnected(queueIndex, 0) && (this.queueList[queueIndex].getRemainingPackets() > 0)) {
+				this.servePackets(queueIndex, 0);
 				break;
 			}
 		}
 	}
 	
 	public void scheduleRandomly() {
-		HashSet<Integer> selectedServers = this.selectRandomServers();
-		int serversFree = selectedServers.size();
+		int serversFree = this.selectRandomServers(this.selectedServers);
 		for (int queueIndex = 0; queueIndex < this.numberOfQueues; queueIndex++) {
-			for (int server : selectedServers) {
-				if ((this.connectivityTable[queueIndex][server - 1].status == 1) && (this.queueList[queueIndex].getRemainingPackets() > 0) && (!this.serverList[server - 1].isBusy())) {
-					//System.out.println("Found connection: queue " + (q + 1) + " to server " + server);
-					this.queueList[queueIndex].popPacket();
-					this.serverList[server - 1].addServedQueue(queueIndex + 1);
-					this.serverList[server - 1].goBusy();
-					//System.out.println(selectedServers.toString());
-					serversFree--;
-					//break;
-				}
-			}
+			serversFree -= this.serveFromSelectedServers(queueIndex);
 			if (serversFree <= 0)
 				break;
 		}
 	}
 	
 	public void scheduleASLCQ() {
-		HashSet<Integer> selectedServers = this.selectRandomServers();
-		int serversFree = selectedServers.size();
-		int queueNumber;
-		int queueIndex;
-		int serverIndex;
-		SimQueue[] sortedQueues = this.sortQueueList();
-		for (int sortedQueueIndex = sortedQueues.length - 1; sortedQueueIndex >= 0; sortedQueueIndex--) {
-			queueNumber = sortedQueues[sortedQueueIndex].getQueueNumber();
-			queueIndex = queueNumber - 1;
-			for (int server : selectedServers) {
-				serverIndex = server - 1;
-				if ((this.connectivityTable[queueIndex][serverIndex].status == 1) && (this.queueList[queueIndex].getRemainingPackets() > 0) && (!this.serverList[serverIndex].isBusy())) {
-					//System.out.println("Found connection: queue " + (q + 1) + " to server " + server);
-					this.queueList[queueIndex].popPacket();
-					this.serverList[serverIndex].addServedQueue(queueNumber);
-					this.serverList[serverIndex].goBusy();
-					//System.out.println(selectedServers.toString());
-					serversFree--;
-					//break;
-				}
-			}
+		int serversFree = this.selectRandomServers(this.selectedServers);
+		int[] queueOrder = this.queueOrder.getOrder();
+		for (int sortedQueueIndex = this.numberOfQueues - 1; sortedQueueIndex >= 0; sortedQueueIndex--) {
+			serversFree -= this.serveFromSelectedServers(queueOrder[sortedQueueIndex]);
 			if (serversFree <= 0)
 				break;
 		}
 	}
 	
 	public void scheduleLCSFLCQ() {
-		int queueNumber;
 		int queueIndex;
-		int serverNumber;
 		int serverIndex;
-		SimQueue[] sortedQueues = this.sortQueueList();
-		SimServer[] sortedServers = this.sortServerList();
-		int serversFree = sortedServers.length;
-		for (int sortedQueueIndex = sortedQueues.length - 1; sortedQueueIndex >= 0; sortedQueueIndex--) {
-			queueNumber = sortedQueues[sortedQueueIndex].getQueueNumber();
-			queueIndex = queueNumber - 1;
-			for (int sortedServerIndex = 0; sortedServerIndex < sortedServers.length; sortedServerIndex++) {
-				serverNumber = sortedServers[sortedServerIndex].getServerNumber();
-				serverIndex = serverNumber - 1;
-				if ((this.connectivityTable[queueIndex][serverIndex].status == 1) && (this.queueList[queueIndex].getRemainingPackets() > 0) && (!this.serverList[serverIndex].isBusy())) {
-					//System.out.println("Found connection: queue " + (q + 1) + " to server " + server);
-					this.queueList[queueIndex].popPacket();
-					this.serverList[serverIndex].addServedQueue(queueNumber);
-					this.serverList[serverIndex].goBusy();
-					//System.out.println(selectedServers.toString());
+		int serversFree = this.numberOfServers;
+		int[] queueOrder = this.queueOrder.getOrder();
+		int[] serverOrder = this.serverOrder.getOrder();
+		for (int sortedQueueIndex = this.numberOfQueues - 1; sortedQueueIndex >= 0; sortedQueueIndex--) {
+			queueIndex = queueOrder[sortedQueueIndex];
+			if ((this.queueList[queueIndex].getRemainingPackets() == 0) || !this.hasIdleConnectedServer(queueIndex))
+				continue;
+			for (int sortedServerIndex = 0; sortedServerIndex < this.numberOfServers; sortedServerIndex++) {
+				serverIndex = serverOrder[sortedServerIndex];
+				if (this.connectivity.isConnected(queueIndex, serverIndex) && (this.queueList[queueIndex].getRemainingPackets() > 0) && (!this.serverList[serverIndex].isBusy())) {
+					this.servePackets(queueIndex, serverIndex);
 					serversFree--;
-					//break;
 				}
 			}
 			if (serversFree <= 0)
@@ -203,79 +315,343 @@ public class Simulator {
 		}
 	}
 	
+	/**
+	 * Queues in decreasing order of backlog take the idle servers they are
+	 * connected to.
+	 */
+	public void scheduleMaxWeightGreedy() {
+		this.serveBacklogMatching(false);
+	}
+	
+	/**
+	 * Serves a maximum weight assignment of servers to queues, each packet
+	 * weighted by its queue's backlog.
+	 */
+	public void scheduleMaxWeight() {
+		this.serveBacklogMatching(true);
+	}
+	
+	private void serveBacklogMatching(boolean exact) {
+		int[] backlogs = this.backlogMatching.getBacklogs();
+		for (int q = 0; q < this.numberOfQueues; q++)
+			backlogs[q] = this.queueList[q].getRemainingPackets();
+		if (exact)
+			this.backlogMatching.matchExact(this.connectivity);
+		else
+			this.backlogMatching.matchGreedy(this.connectivity);
+		for (int s = 0; s < this.numberOfServers; s++) {
+			int q = this.backlogMatching.getServerQueue(s);
+			if (q >= 0)
+				this.servePackets(q, s);
+		}
+	}
+	
 	public SimServer[] sortServerList() {
-		SimServer[] sortedServers = Arrays.copyOf(this.serverList, this.numberOfServers);
-		Arrays.sort(sortedServers, new ServerComparator());
+		SimServer[] sortedServers = new SimServer[this.numberOfServers];
+		for (int i = 0; i < this.numberOfServers; i++)
+			sortedServers[i] = this.serverList[this.serverOrder.getOrder()[i]];
 		return sortedServers;
 	}
 	
 	public SimQueue[] sortQueueList() {
-		SimQueue[] sortedQueues = Arrays.copyOf(this.queueList, this.numberOfQueues);
-		Arrays.sort(sortedQueues, new QueueComparator());
+		SimQueue[] sortedQueues = new SimQueue[this.numberOfQueues];
+		for (int i = 0; i < this.numberOfQueues; i++)
+			sortedQueues[i] = this.queueList[this.queueOrder.getOrder()[i]];
 		return sortedQueues;
 	}
 	
 	public void generatePackets(double packetArrivalProb) {
-		int packetArrived = 0;
-		for (int queue = 0; queue < this.numberOfQueues; queue++) {
-			if (this.numberOfServers == 1)
-				packetArrived = this.packetRandomGenerator.nextBernouliiRandom(packetArrivalProb);
-			else if (this.numberOfServers > 1)
-				packetArrived = this.packetRandomGenerator.nextBernouliiCorrelatedRandom(packetArrivalProb);
-			this.totalPacketsAttempted++;
-			if (packetArrived == 1) {
-				this.queueList[queue].addPacket(new SimPacket());
+		this.packetRandomGenerator.nextArrivals(packetArrivalProb, this.numberOfServers > 1, this.numberOfQueues, this.arrivalMask);
+		this.addArrivals(this.arrivalMask);
+	}
+	
+	/**
+	 * Adds one packet to every queue whose bit is set in arrivalMask.
+	 */
+	public void addArrivals(long[] arrivalMask) {
+		this.totalPacketsAttempted += this.numberOfQueues;
+		for (int w = 0; w < arrivalMask.length; w++) {
+			long arrivals = arrivalMask[w];
+			while (arrivals != 0) {
+				this.queueList[(w << 6) + Long.numberOfTrailingZeros(arrivals)].addArrival(this.currentTimeSlot);
 				this.totalPacketsArrived++;
+				arrivals &= arrivals - 1;
 			}
 		}
 	}
 	
+	public void loadConnectivity(ConnectivityMatrix source) {
+		this.connectivity.copyFrom(source);
+		this.refreshConnectionCounts();
+	}
+	
 	public void releaseServers() {
 		for (SimServer server : this.serverList)
 			server.goIdle();
+		for (int w = 0; w < this.busyServers.length; w++)
+			this.busyServers[w] = 0;
 	}
 	
+	/**
+	 * Runs with connectivity and arrivals drawn from a stream split off this
+	 * simulator's source. The remaining draws of the source go to the
+	 * scheduling policy; the two streams are independent of each other and of
+	 * every other split of the source this one was split from, so sibling
+	 * replications never share traffic.
+	 */
+	@Override
 	public void runSimulation(int times, double connectivityProb, double packetArrivalProb, double aBound, double bBound) {
+		if (this.checkpointPath != null && this.trafficBlockSlots > 0)
+			throw new IllegalStateException("Checkpoints cannot be combined with traffic batching");
+		TrafficGenerator traffic = new TrafficGenerator(this.numberOfQueues, this.numberOfServers, connectivityProb, packetArrivalProb, aBound, bBound, this.random.split());
+		traffic.setSlotKernel(this.slotKernel);
+		traffic.setPerQueueArrivals(this.perQueueArrivals);
+		if (this.trafficBlockSlots > 0) {
+			try (BatchedTrafficSource batched = new BatchedTrafficSource(traffic, this.trafficBlockSlots, this.trafficProducer)) {
+				this.runSimulation(times, batched);
+			}
+		} else {
+			this.runSimulation(times, traffic);
+		}
+	}
+	
+	/**
+	 * Runs times recorded slots. With warm-up detection on, those slots start
+	 * after the warm-up phase chosen by runWarmup.
+	 */
+	public void runSimulation(int times, TrafficSource traffic) {
 		this.refreshSimulation();
-		this.packetRandomGenerator = new CorrelatedUniformRandom(aBound, bBound);
-		this.generatePackets(packetArrivalProb);
-		for (int timeSlot = 1; timeSlot <= times; timeSlot++) {
-			this.updateConnectivities(connectivityProb);
-			// Choose your scheduling policy here
-			//this.scheduleRandomlySingleServer();
-			//this.scheduleRoundRobinSingleServer();
-			//this.scheduleLCQSingleServer();
-			//this.scheduleRandomly();
-			//this.scheduleASLCQ();
-			this.scheduleLCSFLCQ();
-			this.recordOccupancies();
-			this.generatePackets(packetArrivalProb);
-			this.releaseServers();
+		traffic.nextArrivals(this.arrivalMask);
+		this.addArrivals(this.arrivalMask);
+		this.warmingUp = this.warmupDetection;
+		if (this.warmingUp)
+			this.warmupDetector.reset();
+		this.continueSimulation(times, traffic);
+	}
+	
+	/**
+	 * Runs from the current state until times slots are recorded, finishing
+	 * the warm-up first if it is still going.
+	 */
+	private void continueSimulation(int times, TrafficSource traffic) {
+		if (this.checkpointPath != null) {
+			if (!(traffic instanceof TrafficGenerator))
+				throw new IllegalStateException("Checkpoints need the TrafficGenerator of runSimulation");
+			xoshiro(this.random);
+		}
+		if (this.warmingUp)
+			this.runWarmup(times, traffic);
+		while (this.recordedSlots < times) {
+			this.runTimeSlot(traffic);
+			this.checkpointIfDue(times, traffic);
 		}
 	}
 	
-	public void refreshSimulation() {
-		this.connectivityTable = new Connectivity[this.numberOfQueues][this.numberOfServers];
-		for (int q = 0; q < this.numberOfQueues; q++) {
-			for (int s = 0; s < this.numberOfServers; s++) {
-				this.connectivityTable[q][s] = new Connectivity(q + 1, s + 1, Connectivity.NOT_CONNECTED);
-			}
+	private void runTimeSlot(TrafficSource traffic) {
+		this.currentTimeSlot++;
+		if (this.currentTimeSlot % CANCEL_CHECK_INTERVAL == 0)
+			checkCancelled(this.cancellation, Thread.currentThread());
+		traffic.nextConnectivity(this.connectivity);
+		this.refreshConnectionCounts();
+		this.schedulingPolicy.schedule(this);
+		this.recordOccupancies();
+		traffic.nextArrivals(this.arrivalMask);
+		this.addArrivals(this.arrivalMask);
+		this.releaseServers();
+	}
+	
+	/**
+	 * Runs slots until MSER-5 over the per-slot mean occupancy places the end
+	 * of the transient in the first quarter of the slots run, or until
+	 * maxWarmupSlots, then clears the statistics.
+	 *
+	 * Every warm-up slot is discarded, not only the d* batches MSER-5 marks as
+	 * transient. The recorded run is always times slots long and starts after
+	 * the warm-up, so the extra discard costs run time but no recorded data,
+	 * and it keeps the per-queue totals, delays and batch means, none of which
+	 * can be rolled back to slot 5 d*, consistent with each other.
+	 */
+	private void runWarmup(int times, TrafficSource traffic) {
+		while (this.currentTimeSlot < this.maxWarmupSlots) {
+			this.runTimeSlot(traffic);
+			this.warmupDetector.add(this.lastSlotOccupancy);
+			if ((this.currentTimeSlot % WARMUP_CHECK_INTERVAL == 0) && this.warmupDetector.isSteady())
+				break;
+			this.checkpointIfDue(times, traffic);
+		}
+		this.warmupSlots = this.currentTimeSlot;
+		this.clearStatistics();
+		this.warmingUp = false;
+	}
+	
+	private void checkpointIfDue(int times, TrafficSource traffic) {
+		if (this.checkpointPath == null || this.currentTimeSlot % this.checkpointInterval != 0)
+			return;
+		try {
+			this.writeCheckpoint(this.checkpointPath, times, (TrafficGenerator) traffic);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * @throws CancellationException if cancelled is set or runner is interrupted
+	 */
+	static void checkCancelled(AtomicBoolean cancelled, Thread runner) {
+		if (runner.isInterrupted() || (cancelled != null && cancelled.get()))
+			throw new CancellationException("Simulation cancelled");
+	}
+	
+	static XoshiroRandomSource xoshiro(RandomSource random) {
+		if (!(random instanceof XoshiroRandomSource))
+			throw new IllegalStateException("Checkpoints need a XoshiroRandomSource, not " + random.getClass().getSimpleName());
+		return (XoshiroRandomSource) random;
+	}
+	
+	/**
+	 * Writes everything a run needs to carry on from the end of the current
+	 * slot: the configuration that shapes the results, the run parameters,
+	 * clocks and counters, both random streams, the occupancy and warm-up
+	 * accumulators, every queue and server, and the arrival chain. Connectivity
+	 * and server assignments are redrawn every slot, so they are not saved.
+	 */
+	private void writeCheckpoint(Path path, int times, TrafficGenerator traffic) throws IOException {
+		try (CheckpointWriter out = new CheckpointWriter(path)) {
+			out.putInt(this.numberOfQueues);
+			out.putInt(this.numberOfServers);
+			out.putString(this.schedulingPolicy.getName());
+			out.putBoolean(this.warmupDetection);
+			out.putInt(this.maxWarmupSlots);
+			out.putInt(this.occupancyBatchMeans.getBatchSize());
+			
+			out.putInt(times);
+			out.putDouble(traffic.getConnectivityProb());
+			out.putDouble(traffic.getPacketArrivalProb());
+			out.putDouble(traffic.getABound());
+			out.putDouble(traffic.getBBound());
+			
+			out.putBoolean(this.warmingUp);
+			out.putLong(this.currentTimeSlot);
+			out.putLong(this.recordedSlots);
+			out.putLong(this.warmupSlots);
+			out.putDouble(this.lastSlotOccupancy);
+			out.putInt(this.roundRobinQueueIndex);
+			out.putLong(this.totalPacketsArrived);
+			out.putLong(this.totalPacketsAttempted);
+			xoshiro(this.random).writeState(out);
+			this.occupancyBatchMeans.writeState(out);
+			this.warmupDetector.writeState(out);
+			for (SimQueue queue : this.queueList)
+				queue.writeState(out);
+			for (SimServer server : this.serverList)
+				server.writeState(out);
+			traffic.writeState(out);
+			out.commit();
+		}
+	}
+	
+	/**
+	 * Restores a run from a checkpoint written by this topology and finishes
+	 * it. The policy, warm-up settings and batch size are taken from the
+	 * checkpoint; server capacities and service rates must be set as they were.
+	 * The statistics at the end are the same, bit for bit, as those of the run
+	 * that wrote the checkpoint had it not been stopped.
+	 *
+	 * @throws IllegalArgumentException if the checkpoint is for another topology
+	 */
+	public void resumeSimulation(Path path) throws IOException {
+		int times;
+		TrafficGenerator traffic;
+		try (CheckpointReader in = new CheckpointReader(path)) {
+			int noQueues = in.getInt();
+			int noServers = in.getInt();
+			if (noQueues != this.numberOfQueues || noServers != this.numberOfServers)
+				throw new IllegalArgumentException("Checkpoint is for " + noQueues + " queues and " + noServers + " servers");
+			this.setSchedulingPolicy(SchedulingPolicies.forName(in.getString()));
+			this.warmupDetection = in.getBoolean();
+			this.maxWarmupSlots = in.getInt();
+			this.occupancyBatchMeans = new BatchMeans(in.getInt());
+			
+			times = in.getInt();
+			double connectivityProb = in.getDouble();
+			double packetArrivalProb = in.getDouble();
+			double aBound = in.getDouble();
+			double bBound = in.getDouble();
+			
+			this.refreshSimulation();
+			this.warmingUp = in.getBoolean();
+			this.currentTimeSlot = in.getLong();
+			this.recordedSlots = in.getLong();
+			this.warmupSlots = in.getLong();
+			this.lastSlotOccupancy = in.getDouble();
+			this.roundRobinQueueIndex = in.getInt();
+			this.totalPacketsArrived = in.getLong();
+			this.totalPacketsAttempted = in.getLong();
+			xoshiro(this.random).readState(in);
+			this.occupancyBatchMeans.readState(in);
+			this.warmupDetector.readState(in);
+			for (SimQueue queue : this.queueList)
+				queue.readState(in);
+			for (SimServer server : this.serverList)
+				server.readState(in);
+			traffic = new TrafficGenerator(this.numberOfQueues, this.numberOfServers, connectivityProb, packetArrivalProb, aBound, bBound, new XoshiroRandomSource(0L));
+			traffic.setSlotKernel(this.slotKernel);
+			traffic.readState(in);
 		}
+		this.continueSimulation(times, traffic);
+	}
+	
+	/**
+	 * Runs one time slot against connectivity and arrivals generated elsewhere.
+	 */
+	public void runTimeSlot(ConnectivityMatrix slotConnectivity, long[] slotArrivals) {
+		this.currentTimeSlot++;
+		this.loadConnectivity(slotConnectivity);
+		this.schedulingPolicy.schedule(this);
+		this.recordOccupancies();
+		this.addArrivals(slotArrivals);
+		this.releaseServers();
+	}
+	
+	/**
+	 * Clears the simulation and starts a new arrival generator for callers
+	 * driving updateConnectivities and generatePackets themselves.
+	 */
+	public void resetSimulation(double aBound, double bBound) {
+		this.refreshSimulation();
+		this.packetRandomGenerator = new CorrelatedUniformRandom(aBound, bBound, this.random);
+	}
+	
+	public void refreshSimulation() {
+		if (this.connectivity.getNumberOfQueues() != this.numberOfQueues || this.connectivity.getNumberOfServers() != this.numberOfServers)
+			this.allocateTopology();
+		this.currentTimeSlot = 0;
+		this.warmupSlots = 0;
+		this.recordedSlots = 0;
+		this.occupancyBatchMeans.reset();
+		this.connectivity.clear();
+		for (int w = 0; w < this.busyServers.length; w++)
+			this.busyServers[w] = 0;
 		
 		this.queueList = new SimQueue[this.numberOfQueues];
-		for (int sq = 0; sq < this.numberOfQueues; sq++)
+		for (int sq = 0; sq < this.numberOfQueues; sq++) {
 			this.queueList[sq] = new SimQueue(sq + 1);
+			this.queueList[sq].setDelayTracking(this.delayTracking);
+		}
 		
 		this.serverList = new SimServer[this.numberOfServers];
-		for (int server = 0; server < this.numberOfServers; server++)
+		for (int server = 0; server < this.numberOfServers; server++) {
 			this.serverList[server] = new SimServer(server + 1);
+			this.serverList[server].setCapacity(this.serviceRates.getCapacity(server));
+		}
+		this.refreshConnectionCounts();
 	}
 	
 	public void printConnectivityTable() {
 		for (int q = 0; q < this.numberOfQueues; q++) {
 			System.out.println();
 			for (int s = 0; s < this.numberOfServers; s++) {
-				System.out.print(this.connectivityTable[q][s].status + " ");
+				System.out.print((this.connectivity.isConnected(q, s) ? Connectivity.CONNECTED : Connectivity.NOT_CONNECTED) + " ");
 			}
 		}
 	}
@@ -298,18 +674,29 @@ public class Simulator {
 		System.out.print("]\n");
 	}
 	
+	/**
+	 * Returns the number of packets served per recorded slot.
+	 */
 	public double calculateOccupancyAverage() {
 		double count = 0;
 		double average = 0;
-		for (SimQueue queue : this.queueList) {
-			for (long delay : queue.getDelayTimes()) {
-				count++;
-			}
-		}
-		average = count / 50000.0;
+		if (this.recordedSlots == 0)
+			return 0;
+		for (SimQueue queue : this.queueList)
+			count += queue.getPacketsServed();
+		average = count / this.recordedSlots;
 		return average;
 	}
 	
+	/**
+	 * Returns the batch means confidence interval half-width on the average
+	 * occupancy of this run.
+	 */
+	@Override
+	public double calculateOccupancyHalfWidth(double confidence) {
+		return this.occupancyBatchMeans.getHalfWidth(confidence);
+	}
+	
 	public double calculateOccupancyConfidenceInterval(double average) {
 		double totalVariance = 0;
 		double count = 0;
@@ -324,10 +711,159 @@ public class Simulator {
 		return confidenceInterval;
 	}
 	
+	@Override
+	public long getTotalPacketsArrived() {
+		return totalPacketsArrived;
+	}
+
+	@Override
+	public long getTotalPacketsAttempted() {
+		return totalPacketsAttempted;
+	}
+
+	public boolean isWarmupDetection() {
+		return warmupDetection;
+	}
+
+	/**
+	 * Turns on automatic warm-up deletion in runSimulation.
+	 */
+	@Override
+	public void setWarmupDetection(boolean warmupDetection) {
+		this.warmupDetection = warmupDetection;
+	}
+
+	public int getMaxWarmupSlots() {
+		return maxWarmupSlots;
+	}
+
+	public void setMaxWarmupSlots(int maxWarmupSlots) {
+		this.maxWarmupSlots = maxWarmupSlots;
+	}
+
+	/**
+	 * Returns the number of slots the last run spent in warm-up, all of them
+	 * discarded; at most a quarter of them were still transient.
+	 */
+	public long getWarmupSlots() {
+		return warmupSlots;
+	}
+
+	public long getRecordedSlots() {
+		return recordedSlots;
+	}
+
+	public BatchMeans getOccupancyBatchMeans() {
+		return occupancyBatchMeans;
+	}
+
+	/**
+	 * Makes runSimulation write a checkpoint to path every intervalSlots slots,
+	 * for resumeSimulation. A null path turns checkpoints off. Each checkpoint
+	 * replaces the previous one only once it is completely written.
+	 */
+	public void setCheckpointing(Path path, int intervalSlots) {
+		if (path != null && intervalSlots <= 0)
+			throw new IllegalArgumentException("Checkpoint interval must be positive");
+		this.checkpointPath = path;
+		this.checkpointInterval = intervalSlots;
+	}
+	
+	public Path getCheckpointPath() {
+		return checkpointPath;
+	}
+	
+	public void setOccupancyBatchSize(int batchSize) {
+		this.occupancyBatchMeans = new BatchMeans(batchSize);
+	}
+
+	public long getCurrentTimeSlot() {
+		return currentTimeSlot;
+	}
+
+	/**
+	 * Moves the clock to the next slot for callers driving updateConnectivities,
+	 * the schedulers and generatePackets themselves.
+	 */
+	public void advanceTimeSlot() {
+		this.currentTimeSlot++;
+	}
+
+	public SchedulingPolicy getSchedulingPolicy() {
+		return schedulingPolicy;
+	}
+
+	@Override
+	public void setSchedulingPolicy(SchedulingPolicy schedulingPolicy) {
+		this.schedulingPolicy = schedulingPolicy;
+	}
+
+	@Override
+	public void setServerCapacity(int serverIndex, int capacity) {
+		this.serviceRates.setCapacity(serverIndex, capacity);
+		this.serverList[serverIndex].setCapacity(capacity);
+	}
+	
+	@Override
+	public void setServiceRate(int queueIndex, int serverIndex, int rate) {
+		this.serviceRates.setRate(queueIndex, serverIndex, rate);
+	}
+	
+	public boolean isDelayTracking() {
+		return this.delayTracking;
+	}
+	
+	/**
+	 * Turns per-packet delay tracking on or off. Off is counting mode: queues
+	 * only keep their lengths and served counts, which is all occupancy and
+	 * calculateOccupancyAverage need, and calculateAvgDelay throws. Applies
+	 * from the next refreshSimulation.
+	 */
+	public void setDelayTracking(boolean delayTracking) {
+		this.delayTracking = delayTracking;
+	}
+	
+	public ServiceRates getServiceRates() {
+		return serviceRates;
+	}
+
+	public SlotKernel getSlotKernel() {
+		return slotKernel;
+	}
+
+	@Override
+	public void setSlotKernel(SlotKernel slotKernel) {
+		this.slotKernel = slotKernel;
+	}
+
+	@Override
+	public void setTrafficBatching(int blockSlots, boolean producerThread) {
+		this.trafficBlockSlots = blockSlots;
+		this.trafficProducer = producerThread;
+	}
+	
+	@Override
+	public void setPerQueueArrivals(boolean perQueueArrivals) {
+		this.perQueueArrivals = perQueueArrivals;
+	}
+	
+	@Override
+	public void setCancellation(AtomicBoolean cancelled) {
+		this.cancellation = cancelled;
+	}
+
+	public RandomSource getRandomSource() {
+		return random;
+	}
+
 	public int getNumberOfQueues() {
 		return numberOfQueues;
 	}
 
+	/**
+	 * Takes effect at the next refreshSimulation, which resizes the
+	 * connectivity and per-queue state and resets service rates.
+	 */
 	public void setNumberOfQueues(int numberOfQueues) {
 		this.numberOfQueues = numberOfQueues;
 	}
@@ -336,16 +872,38 @@ public class Simulator {
 		return numberOfServers;
 	}
 
+	/**
+	 * Takes effect at the next refreshSimulation, which resizes the
+	 * connectivity and per-server state and resets service rates.
+	 */
 	public void setNumberOfServers(int numberOfServers) {
 		this.numberOfServers = numberOfServers;
 	}
 
+	public ConnectivityMatrix getConnectivity() {
+		return connectivity;
+	}
+
+	/**
+	 * Returns a snapshot of the connectivity as Connectivity objects.
+	 */
 	public Connectivity[][] getConnectivityTable() {
+		Connectivity[][] connectivityTable = new Connectivity[this.numberOfQueues][this.numberOfServers];
+		for (int q = 0; q < this.numberOfQueues; q++) {
+			for (int s = 0; s < this.numberOfServers; s++) {
+				connectivityTable[q][s] = new Connectivity(q + 1, s + 1, this.connectivity.isConnected(q, s) ? Connectivity.CONNECTED : Connectivity.NOT_CONNECTED);
+			}
+		}
 		return connectivityTable;
 	}
 
 	public void setConnectivityTable(Connectivity[][] connectivityTable) {
-		this.connectivityTable = connectivityTable;
+		for (int q = 0; q < this.numberOfQueues; q++) {
+			for (int s = 0; s < this.numberOfServers; s++) {
+				this.connectivity.setConnected(q, s, connectivityTable[q][s].status == Connectivity.CONNECTED);
+			}
+		}
+		this.refreshConnectionCounts();
 	}
 
 	public static double computeAverage(ArrayList<Double> list) {
@@ -359,60 +917,6 @@ public class Simulator {
 	}
 	
 	public static void main(String[] args) {
-		Simulator simulator = new Simulator();
-		int runningTimes = 50000;
-		for (int i = 0; i < 20; i++)
-			simulator.runSimulation(runningTimes, 1, 0.08, 0.1, 0.1);
-		ArrayList<Double> averagesDiffLambda = new ArrayList<Double>();
-		ArrayList<Double> confidenceIntervalsDiffLambda = new ArrayList<Double>();
-		for (int simBase = 1; simBase <= 10; simBase++) {
-			ArrayList<Double> averages = new ArrayList<Double>();
-			ArrayList<Double> confidenceIntervals = new ArrayList<Double>();
-			for (int i = 0; i < 20; i++) {
-				simulator = new Simulator();
-				simulator.runSimulation(runningTimes, 0.5, 0.02 * simBase, 0.1, 0.1);
-				double average = simulator.calculateAvgOccupancy(runningTimes);
-				averages.add(average);
-				confidenceIntervals.add(simulator.calculateOccupancyConfidenceInterval(average));
-				double arrivalRate = ((double) simulator.totalPacketsArrived) / ((double) simulator.totalPacketsAttempted);
-				//System.out.println("Packet arrival rate: " + simulator.totalPacketsArrived + "/" + simulator.totalPacketsAttempted + " = " + arrivalRate);
-			}
-			averagesDiffLambda.add(Simulator.computeAverage(averages));
-			confidenceIntervalsDiffLambda.add(Simulator.computeAverage(confidenceIntervals));
-		}
-		String output = "Lambda\tAverage Occupancy\tConfidence Interval\n";
-		StringBuilder outputBuilder = new StringBuilder(output);
-		for (int i = 0; i < averagesDiffLambda.size(); i++) {
-			outputBuilder.append(((i + 1) * 0.02) + "\t" + averagesDiffLambda.get(i) + "\t" + confidenceIntervalsDiffLambda.get(i) + "\n");
-		}
-		System.out.println(outputBuilder.toString());
-	}
-	
-	
-	private class ServerComparator implements Comparator<SimServer> {
-
-		@Override
-		public int compare(SimServer o1, SimServer o2) {
-			if (o1.getConnections() > o2.getConnections())
-				return 1;
-			else if (o1.getConnections() == o2.getConnections())
-				return 0;
-			else
-				return -1;
-		}
-	}
-	
-	private class QueueComparator implements Comparator<SimQueue> {
-
-		@Override
-		public int compare(SimQueue o1, SimQueue o2) {
-			if (o1.getConnections() > o2.getConnections())
-				return 1;
-			else if (o1.getConnections() == o2.getConnections())
-				return 0;
-			else
-				return -1;
-		}
-		
+		SimulatorCli.main(args);
 	}
 }
@@ -0,0 +1,286 @@
+package simproject;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command line entry point for lambda sweeps. Every option has the default
+ * that the original Simulator.main hard-coded. The confidence interval column
+ * is the Student t half-width across replications.
+ *
+ * <pre>
+ * java -jar sysc4005-all.jar [--policy lcsf-lcq] [--queues 5] [--servers 3]
+ *     [--times 50000] [--replications 20] [--connectivity 0.5]
+ *     [--lambdas 0.02,0.04,...] [--a 0.1] [--b 0.1] [--threads N] [--seed S]
+ *     [--confidence 0.95] [--warmup false] [--engine objects] [--kernel scalar]
+ *     [--batch 0] [--producer false] [--capacities 1]
+ *     [--per-queue-arrivals false] [--progress false] [--timeout 0]
+ * </pre>
+ *
+ * With {@code --precision r} the replication count becomes adaptive: each
+ * lambda runs replications until the half-width is within r of the mean,
+ * at least {@code --min-replications} and at most {@code --max-slots} slots.
+ * {@code --warmup true} deletes the start of every replication until MSER-5
+ * finds the transient over, which changes the reported occupancies.
+ * {@code --engine arrays} switches to the structure-of-arrays engine, which
+ * is faster for large topologies and reports the same occupancies;
+ * {@code --engine events} also skips the slots in which every queue is empty.
+ * {@code --engine parallel} splits the queues of each run over the
+ * processors left to it by the other replications, for topologies of many
+ * thousands of queues; with {@code --threads 1} every run gets them all.
+ * {@code --kernel vector} generates traffic with the Vector API, which needs
+ * {@code java --add-modules jdk.incubator.vector -jar ...}; without the
+ * module it falls back to the scalar kernel.
+ * {@code --batch n} pre-generates traffic n slots at a time, on a separate
+ * thread with {@code --producer true}.
+ * {@code --capacities} gives the packets per slot of every server, either one
+ * value for all of them or a comma separated value per server.
+ * {@code --per-queue-arrivals true} gives every queue its own correlated
+ * arrival chain instead of one chain walked across all queues, with the same
+ * arrival rate and slot-to-slot correlation per queue.
+ * {@code --progress true} prints every replication to stderr as it completes,
+ * and {@code --timeout s} stops the sweep after s seconds and reports the
+ * replications finished by then. Neither can be combined with
+ * {@code --precision}.
+ */
+public class SimulatorCli {
+	
+	private String policy = LCSFLCQPolicy.NAME;
+	private int numberOfQueues = Simulator.NUMBER_OF_QUEUES;
+	private int numberOfServers = Simulator.NUMBER_OF_SERVERS;
+	private int times = 50000;
+	private int replications = 20;
+	private double connectivityProb = 0.5;
+	private double[] packetArrivalProbs = defaultPacketArrivalProbs();
+	private double aBound = 0.1;
+	private double bBound = 0.1;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private long seed = System.nanoTime();
+	private double confidence = ReplicationRunner.DEFAULT_CONFIDENCE;
+	private double relativePrecision = 0;
+	private int minReplications = 5;
+	private long maxTotalSlots = 100000000L;
+	private boolean warmupDetection = false;
+	private String engine = SimulationEngines.OBJECTS;
+	private String slotKernel = ScalarSlotKernel.NAME;
+	private int trafficBlockSlots = 0;
+	private boolean trafficProducer = false;
+	private int[] serverCapacities = null;
+	private boolean perQueueArrivals = false;
+	private boolean progress = false;
+	private long timeoutSeconds = 0;
+	
+	private static double[] defaultPacketArrivalProbs() {
+		double[] probs = new double[10];
+		for (int simBase = 1; simBase <= 10; simBase++)
+			probs[simBase - 1] = 0.02 * simBase;
+		return probs;
+	}
+	
+	private static double[] parseDoubles(String list) {
+		String[] parts = list.split(",");
+		double[] values = new double[parts.length];
+		for (int i = 0; i < parts.length; i++)
+			values[i] = Double.parseDouble(parts[i].trim());
+		return values;
+	}
+	
+	private static int[] parseInts(String list) {
+		String[] parts = list.split(",");
+		int[] values = new int[parts.length];
+		for (int i = 0; i < parts.length; i++)
+			values[i] = Integer.parseInt(parts[i].trim());
+		return values;
+	}
+	
+	/**
+	 * Expands a single capacity to every server.
+	 */
+	private int[] expandCapacities(int[] capacities) {
+		if (capacities == null)
+			return null;
+		for (int capacity : capacities) {
+			if (capacity < 1)
+				throw new IllegalArgumentException("Capacity must be at least one packet per slot");
+		}
+		if (capacities.length == this.numberOfServers)
+			return capacities;
+		if (capacities.length != 1)
+			throw new IllegalArgumentException("Expected 1 or " + this.numberOfServers + " capacities, got " + capacities.length);
+		int[] expanded = new int[this.numberOfServers];
+		for (int s = 0; s < this.numberOfServers; s++)
+			expanded[s] = capacities[0];
+		return expanded;
+	}
+	
+	private void parse(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			String option = args[i];
+			if (i + 1 >= args.length)
+				throw new IllegalArgumentException("Missing value for " + option);
+			String value = args[++i];
+			switch (option) {
+			case "--policy":
+				this.policy = value;
+				break;
+			case "--queues":
+				this.numberOfQueues = Integer.parseInt(value);
+				break;
+			case "--servers":
+				this.numberOfServers = Integer.parseInt(value);
+				break;
+			case "--times":
+				this.times = Integer.parseInt(value);
+				break;
+			case "--replications":
+				this.replications = Integer.parseInt(value);
+				break;
+			case "--connectivity":
+				this.connectivityProb = Double.parseDouble(value);
+				break;
+			case "--lambdas":
+				this.packetArrivalProbs = parseDoubles(value);
+				break;
+			case "--a":
+				this.aBound = Double.parseDouble(value);
+				break;
+			case "--b":
+				this.bBound = Double.parseDouble(value);
+				break;
+			case "--threads":
+				this.threads = Integer.parseInt(value);
+				break;
+			case "--seed":
+				this.seed = Long.parseLong(value);
+				break;
+			case "--confidence":
+				this.confidence = Double.parseDouble(value);
+				break;
+			case "--precision":
+				this.relativePrecision = Double.parseDouble(value);
+				break;
+			case "--min-replications":
+				this.minReplications = Integer.parseInt(value);
+				break;
+			case "--max-slots":
+				this.maxTotalSlots = Long.parseLong(value);
+				break;
+			case "--warmup":
+				this.warmupDetection = Boolean.parseBoolean(value);
+				break;
+			case "--engine":
+				if (!SimulationEngines.getNames().contains(value))
+					throw new IllegalArgumentException("Unknown engine " + value);
+				this.engine = value;
+				break;
+			case "--kernel":
+				if (!SlotKernels.getNames().contains(value))
+					throw new IllegalArgumentException("Unknown kernel " + value);
+				this.slotKernel = value;
+				break;
+			case "--batch":
+				this.trafficBlockSlots = Integer.parseInt(value);
+				break;
+			case "--producer":
+				this.trafficProducer = Boolean.parseBoolean(value);
+				break;
+			case "--capacities":
+				this.serverCapacities = parseInts(value);
+				break;
+			case "--per-queue-arrivals":
+				this.perQueueArrivals = Boolean.parseBoolean(value);
+				break;
+			case "--progress":
+				this.progress = Boolean.parseBoolean(value);
+				break;
+			case "--timeout":
+				this.timeoutSeconds = Long.parseLong(value);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + option);
+			}
+		}
+		if (this.relativePrecision > 0 && (this.progress || this.timeoutSeconds > 0))
+			throw new IllegalArgumentException("--progress and --timeout apply to fixed replication counts and cannot be combined with --precision");
+		this.serverCapacities = this.expandCapacities(this.serverCapacities);
+	}
+	
+	private String run() {
+		SchedulingPolicy schedulingPolicy = SchedulingPolicies.forName(this.policy);
+		ReplicationRunner runner = new ReplicationRunner(this.threads, this.seed);
+		runner.setTopology(this.numberOfQueues, this.numberOfServers);
+		runner.setSchedulingPolicy(schedulingPolicy);
+		runner.setWarmupDetection(this.warmupDetection);
+		runner.setEngine(this.engine);
+		runner.setSlotKernel(this.slotKernel);
+		runner.setTrafficBatching(this.trafficBlockSlots, this.trafficProducer);
+		runner.setServerCapacities(this.serverCapacities);
+		runner.setPerQueueArrivals(this.perQueueArrivals);
+		if (this.slotKernel.equals(VectorSlotKernel.NAME) && !SlotKernels.isVectorAvailable())
+			System.err.println("jdk.incubator.vector is not available, using the scalar kernel");
+		if (this.relativePrecision > 0) {
+			try {
+				return this.format(runner.runUntilPrecision(this.times, this.connectivityProb, this.packetArrivalProbs, this.aBound, this.bBound, new SequentialStoppingRule(this.relativePrecision, this.confidence, this.minReplications, this.maxTotalSlots)));
+			} finally {
+				runner.shutdown();
+			}
+		}
+		ReplicationResult[][] results;
+		try {
+			if (this.progress || this.timeoutSeconds > 0)
+				results = this.runSweep(runner);
+			else
+				results = runner.runReplications(this.replications, this.times, this.connectivityProb, this.packetArrivalProbs, this.aBound, this.bBound);
+		} finally {
+			runner.shutdown();
+		}
+		
+		String output = "Lambda\tAverage Occupancy\tConfidence Interval\n";
+		StringBuilder outputBuilder = new StringBuilder(output);
+		for (int lambdaIndex = 0; lambdaIndex < results.length; lambdaIndex++) {
+			OnlineStatistics averages = ReplicationRunner.occupancyStatistics(results[lambdaIndex]);
+			outputBuilder.append(this.packetArrivalProbs[lambdaIndex] + "\t" + averages.getMean() + "\t" + averages.getHalfWidth(this.confidence) + "\n");
+		}
+		return outputBuilder.toString();
+	}
+	
+	private ReplicationResult[][] runSweep(ReplicationRunner runner) {
+		SweepSink sink = new SweepSink() {
+			@Override
+			public void replicationCompleted(SweepPoint point, ReplicationResult result) {
+				if (progress)
+					System.err.println(point.getPacketArrivalProb() + "\t" + result.getReplication() + "\t" + result.getAverageOccupancy());
+			}
+			
+			@Override
+			public void pointCompleted(SweepPoint point, ReplicationResult[] results) {
+			}
+		};
+		SweepOrchestrator sweep = new SweepOrchestrator(runner, SweepPoint.grid(new double[] { this.connectivityProb }, this.packetArrivalProbs, new double[] { this.aBound }, new double[] { this.bBound }), this.replications, this.times, sink);
+		if (!sweep.run(this.timeoutSeconds > 0 ? this.timeoutSeconds : Long.MAX_VALUE, TimeUnit.SECONDS))
+			System.err.println("Timed out after " + this.timeoutSeconds + " s, reporting the replications completed so far");
+		return sweep.getResults();
+	}
+	
+	private String format(SequentialResult[] results) {
+		StringBuilder outputBuilder = new StringBuilder("Lambda\tAverage Occupancy\tConfidence Interval\tReplications\tConverged\n");
+		for (SequentialResult result : results) {
+			OnlineStatistics averages = result.getOccupancyStatistics();
+			outputBuilder.append(result.getPacketArrivalProb() + "\t" + averages.getMean() + "\t" + averages.getHalfWidth(this.confidence) + "\t" + averages.getCount() + "\t" + result.isConverged() + "\n");
+		}
+		return outputBuilder.toString();
+	}
+	
+	public static void main(String[] args) {
+		SimulatorCli cli = new SimulatorCli();
+		try {
+			cli.parse(args);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Policies: " + SchedulingPolicies.getNames());
+			System.err.println("Engines: " + SimulationEngines.getNames());
+			System.err.println("Kernels: " + SlotKernels.getNames());
+			System.exit(2);
+		}
+		System.out.println(cli.run());
+	}
+}
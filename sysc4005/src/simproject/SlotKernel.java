@@ -0,0 +1,24 @@
+package simproject;
+
+/**
+ * Inner loops that turn random bits into the per-slot connectivity matrix and
+ * arrival mask. Every implementation must consume the random source in the
+ * same order and produce the same bits, so the choice of kernel only changes
+ * speed. Instances may keep scratch buffers and are not thread-safe.
+ */
+public interface SlotKernel {
+	
+	public String getName();
+	
+	/**
+	 * Sets every (queue, server) cell of connectivity to an independent
+	 * Bernoulli(prob) draw, row by row.
+	 */
+	public void fillConnectivity(ConnectivityMatrix connectivity, double prob, RandomSource random);
+	
+	/**
+	 * Draws one arrival per queue from generator into mask and returns the
+	 * number of arrivals, as CorrelatedUniformRandom.nextArrivals does.
+	 */
+	public int nextArrivals(CorrelatedUniformRandom generator, double prob, boolean correlated, int numberOfQueues, long[] mask);
+}
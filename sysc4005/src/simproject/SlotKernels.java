@@ -0,0 +1,53 @@
+package simproject;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Creates slot kernels by name. The vector kernel is loaded reflectively so
+ * that this class, and everything that uses it, still runs on a JVM started
+ * without the jdk.incubator.vector module.
+ */
+public final class SlotKernels {
+	
+	private static final boolean VECTOR_AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+	
+	// don't instantiate
+	private SlotKernels() { }
+	
+	/**
+	 * Asking for the vector kernel when the Vector API is not available
+	 * returns the scalar kernel; check getName() to see which one you got.
+	 *
+	 * @throws IllegalArgumentException if no kernel has that name
+	 */
+	public static SlotKernel create(String name) {
+		switch (name) {
+		case ScalarSlotKernel.NAME:
+			return new ScalarSlotKernel();
+		case VectorSlotKernel.NAME:
+			if (VECTOR_AVAILABLE) {
+				try {
+					return (SlotKernel) Class.forName("simproject.VectorSlotKernel").getDeclaredConstructor().newInstance();
+				} catch (ReflectiveOperationException | LinkageError e) {
+					// fall through to scalar
+				}
+			}
+			return new ScalarSlotKernel();
+		default:
+			throw new IllegalArgumentException("Unknown kernel " + name + ", expected one of " + getNames());
+		}
+	}
+	
+	public static SlotKernel getDefault() {
+		return new ScalarSlotKernel();
+	}
+	
+	public static boolean isVectorAvailable() {
+		return VECTOR_AVAILABLE;
+	}
+	
+	public static List<String> getNames() {
+		return Arrays.asList(ScalarSlotKernel.NAME, VectorSlotKernel.NAME);
+	}
+}
@@ -0,0 +1,76 @@
+package simproject;
+
+/**
+ * Quantiles of the Student t and standard normal distributions, used for
+ * confidence intervals.
+ */
+public final class StudentT {
+	
+	// don't instantiate
+	private StudentT() { }
+	
+	/**
+	 * Returns the half-width multiplier t such that a two-sided interval of
+	 * +/- t standard errors has the given confidence with df degrees of freedom.
+	 * Uses Hill's algorithm (CACM 396), accurate to about six digits.
+	 * @throws IllegalArgumentException unless <tt>0 < confidence < 1</tt> and <tt>df >= 1</tt>
+	 */
+	public static double criticalValue(double confidence, double df) {
+		if (!(confidence > 0.0 && confidence < 1.0))
+			throw new IllegalArgumentException("Confidence must be between 0.0 and 1.0");
+		if (!(df >= 1.0))
+			throw new IllegalArgumentException("Degrees of freedom must be at least 1");
+		double p = 1.0 - confidence;
+		if (df == 1.0) {
+			p *= Math.PI / 2;
+			return Math.cos(p) / Math.sin(p);
+		}
+		if (df == 2.0)
+			return Math.sqrt(2.0 / (p * (2.0 - p)) - 2.0);
+		double a = 1.0 / (df - 0.5);
+		double b = 48.0 / (a * a);
+		double c = ((20700.0 * a / b - 98.0) * a - 16.0) * a + 96.36;
+		double d = ((94.5 / (b + c) - 3.0) / b + 1.0) * Math.sqrt(a * Math.PI / 2) * df;
+		double x = d * p;
+		double y = Math.pow(x, 2.0 / df);
+		if (y > 0.05 + a) {
+			x = normalQuantile(0.5 * p);
+			y = x * x;
+			if (df < 5)
+				c += 0.3 * (df - 4.5) * (x + 0.6);
+			c = (((0.05 * d * x - 5.0) * x - 7.0) * x - 2.0) * x + b + c;
+			y = (((((0.4 * y + 6.3) * y + 36.0) * y + 94.5) / c - y - 3.0) / b + 1.0) * x;
+			y = a * y * y;
+			y = (y > 0.002) ? Math.exp(y) - 1.0 : 0.5 * y * y + y;
+		}
+		else {
+			y = ((1.0 / (((df + 6.0) / (df * y) - 0.089 * d - 0.822) * (df + 2.0) * 3.0) + 0.5 / (df + 4.0)) * y - 1.0) * (df + 1.0) / (df + 2.0) + 1.0 / y;
+		}
+		return Math.sqrt(df * y);
+	}
+	
+	/**
+	 * Returns the p quantile of the standard normal distribution (Acklam's
+	 * rational approximation, relative error below 1.2e-9).
+	 */
+	public static double normalQuantile(double p) {
+		if (!(p > 0.0 && p < 1.0))
+			throw new IllegalArgumentException("Probability must be between 0.0 and 1.0");
+		double q;
+		double r;
+		if (p < 0.02425) {
+			q = Math.sqrt(-2 * Math.log(p));
+			return (((((-7.784894002430293e-03 * q - 3.223964580411365e-01) * q - 2.400758277161838e+00) * q - 2.549732539343734e+00) * q + 4.374664141464968e+00) * q + 2.938163982698783e+00)
+					/ ((((7.784695709041462e-03 * q + 3.224671290700398e-01) * q + 2.445134137142996e+00) * q + 3.754408661907416e+00) * q + 1);
+		}
+		if (p > 1 - 0.02425) {
+			q = Math.sqrt(-2 * Math.log(1 - p));
+			return -(((((-7.784894002430293e-03 * q - 3.223964580411365e-01) * q - 2.400758277161838e+00) * q - 2.549732539343734e+00) * q + 4.374664141464968e+00) * q + 2.938163982698783e+00)
+					/ ((((7.784695709041462e-03 * q + 3.224671290700398e-01) * q + 2.445134137142996e+00) * q + 3.754408661907416e+00) * q + 1);
+		}
+		q = p - 0.5;
+		r = q * q;
+		return (((((-3.969683028665376e+01 * r + 2.209460984245205e+02) * r - 2.759285104469687e+02) * r + 1.383577518672690e+02) * r - 3.066479806614716e+01) * r + 2.506628277459239e+00) * q
+				/ (((((-5.447609879822406e+01 * r + 1.615858368580409e+02) * r - 1.556989798598866e+02) * r + 6.680131188771972e+01) * r - 1.328068155288572e+01) * r + 1);
+	}
+}
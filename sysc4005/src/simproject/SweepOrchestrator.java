@@ -0,0 +1,232 @@
+package simproject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs one sweep over a list of points, streaming every replication to a sink
+ * as it completes. Each point is driven by its own orchestration thread,
+ * virtual when the JVM has them, which submits the point's replications to the
+ * runner's executor and waits for them; the simulations themselves only ever
+ * run on that bounded pool. Replication streams are split off the runner's
+ * seed in point order, so with a single connectivity, a and b the results
+ * equal those of ReplicationRunner.runReplications.
+ *
+ * A sweep can be cancelled or time-boxed. Replications that have not started
+ * are dropped and ones already running stop within
+ * Simulator.CANCEL_CHECK_INTERVAL slots. Once cancel returns no more results
+ * are stored or reported.
+ */
+public class SweepOrchestrator {
+	
+	private ReplicationRunner runner;
+	private List<SweepPoint> points;
+	private int replications;
+	private int times;
+	private SweepSink sink;
+	private ReplicationResult[][] results;
+	private List<Future<ReplicationResult>> futures;
+	private ExecutorService orchestration;
+	private CountDownLatch remainingPoints;
+	private final AtomicBoolean cancelled = new AtomicBoolean();
+	private volatile Throwable failure;
+	
+	public SweepOrchestrator(ReplicationRunner runner, List<SweepPoint> points, int replications, int times, SweepSink sink) {
+		this.runner = runner;
+		this.points = new ArrayList<SweepPoint>(points);
+		this.replications = replications;
+		this.times = times;
+		this.sink = sink;
+		this.results = new ReplicationResult[this.points.size()][replications];
+		this.futures = new ArrayList<Future<ReplicationResult>>();
+		this.remainingPoints = new CountDownLatch(this.points.size());
+	}
+	
+	/**
+	 * Returns an executor that starts a virtual thread per task, or a platform
+	 * thread per task on JVMs without virtual threads.
+	 */
+	static ExecutorService newOrchestrationExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return Executors.newCachedThreadPool(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable task) {
+					Thread thread = new Thread(task, "sweep-orchestrator");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Starts one orchestration thread per point and returns at once.
+	 *
+	 * @throws IllegalStateException if the sweep was already started
+	 */
+	public void start() {
+		if (this.orchestration != null)
+			throw new IllegalStateException("Sweep already started");
+		this.orchestration = newOrchestrationExecutor();
+		RandomSource rootRandom = new XoshiroRandomSource(this.runner.getBaseSeed());
+		for (int p = 0; p < this.points.size(); p++) {
+			final int pointIndex = p;
+			final RandomSource[] streams = new RandomSource[this.replications];
+			for (int rep = 0; rep < this.replications; rep++)
+				streams[rep] = rootRandom.split();
+			this.orchestration.execute(new Runnable() {
+				@Override
+				public void run() {
+					runPoint(pointIndex, streams);
+				}
+			});
+		}
+		this.orchestration.shutdown();
+	}
+	
+	private void runPoint(int pointIndex, RandomSource[] streams) {
+		SweepPoint point = this.points.get(pointIndex);
+		CompletionService<ReplicationResult> completion = new ExecutorCompletionService<ReplicationResult>(this.runner.getExecutor());
+		try {
+			for (int rep = 0; rep < this.replications && !this.cancelled.get(); rep++) {
+				Future<ReplicationResult> future = completion.submit(this.runner.replication(this.times, point.getConnectivityProb(), point.getPacketArrivalProb(), point.getABound(), point.getBBound(), rep, streams[rep], this.cancelled));
+				synchronized (this.futures) {
+					this.futures.add(future);
+				}
+				// cancel() may have run before the future was listed
+				if (this.cancelled.get())
+					future.cancel(true);
+			}
+			for (int done = 0; done < this.replications && !this.cancelled.get(); done++) {
+				ReplicationResult result = completion.take().get();
+				// cancel() sets the flag under the same lock
+				synchronized (this.sink) {
+					if (this.cancelled.get())
+						return;
+					this.results[pointIndex][result.getReplication()] = result;
+					this.sink.replicationCompleted(point, result);
+				}
+			}
+			synchronized (this.sink) {
+				if (!this.cancelled.get())
+					this.sink.pointCompleted(point, this.results[pointIndex].clone());
+			}
+		} catch (InterruptedException e) {
+			// cancelled
+		} catch (CancellationException e) {
+			// cancel() cancelled the replication this point was waiting for
+		} catch (ExecutionException e) {
+			if (!this.cancelled.get()) {
+				this.failure = e.getCause();
+				this.cancel();
+			}
+		} catch (RuntimeException e) {
+			this.failure = e;
+			this.cancel();
+		} finally {
+			this.remainingPoints.countDown();
+		}
+	}
+	
+	/**
+	 * Stops the sweep: queued replications are cancelled, running ones are
+	 * told to stop and no more results reach the sink. Safe to call more than
+	 * once.
+	 */
+	public void cancel() {
+		synchronized (this.sink) {
+			this.cancelled.set(true);
+		}
+		synchronized (this.futures) {
+			for (Future<ReplicationResult> future : this.futures)
+				future.cancel(true);
+		}
+		if (this.orchestration != null)
+			this.orchestration.shutdownNow();
+	}
+	
+	/**
+	 * Waits up to timeout for every point to finish or be cancelled and returns
+	 * whether they all did.
+	 *
+	 * @throws IllegalStateException if the sweep was not started or a replication failed
+	 */
+	public boolean awaitCompletion(long timeout, TimeUnit unit) {
+		if (this.orchestration == null)
+			throw new IllegalStateException("Sweep not started");
+		boolean finished;
+		try {
+			finished = this.remainingPoints.await(timeout, unit);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the sweep", e);
+		}
+		if (this.failure != null)
+			throw new IllegalStateException("Replication failed", this.failure);
+		return finished;
+	}
+	
+	/**
+	 * Starts the sweep, waits up to timeout and cancels whatever is left, then
+	 * waits for the points to stop. Returns true when every point completed in
+	 * time.
+	 */
+	public boolean run(long timeout, TimeUnit unit) {
+		this.start();
+		boolean finished = false;
+		try {
+			finished = this.awaitCompletion(timeout, unit);
+		} finally {
+			if (!finished) {
+				this.cancel();
+				this.awaitPoints();
+			}
+		}
+		return !this.cancelled.get();
+	}
+	
+	/**
+	 * Waits for every point thread to return, which they do soon after
+	 * cancel() since they only wait on replications.
+	 */
+	private void awaitPoints() {
+		try {
+			this.remainingPoints.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the sweep", e);
+		}
+	}
+	
+	public boolean isCancelled() {
+		return cancelled.get();
+	}
+	
+	public List<SweepPoint> getPoints() {
+		return points;
+	}
+	
+	/**
+	 * Returns the results indexed by point and replication, waiting for the
+	 * points of a started sweep to finish or stop. Entries of replications
+	 * that did not complete are null.
+	 */
+	public ReplicationResult[][] getResults() {
+		if (this.orchestration != null)
+			this.awaitPoints();
+		return results;
+	}
+}
@@ -0,0 +1,60 @@
+package simproject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One point of a sweep: the traffic parameters of runSimulation.
+ */
+public class SweepPoint {
+	
+	private double connectivityProb;
+	private double packetArrivalProb;
+	private double aBound;
+	private double bBound;
+	
+	public SweepPoint(double connectivityProb, double packetArrivalProb, double aBound, double bBound) {
+		this.connectivityProb = connectivityProb;
+		this.packetArrivalProb = packetArrivalProb;
+		this.aBound = aBound;
+		this.bBound = bBound;
+	}
+	
+	/**
+	 * Returns every combination of the given values, with the arrival
+	 * probability varying fastest and the connectivity probability slowest.
+	 */
+	public static List<SweepPoint> grid(double[] connectivityProbs, double[] packetArrivalProbs, double[] aBounds, double[] bBounds) {
+		List<SweepPoint> points = new ArrayList<SweepPoint>();
+		for (double connectivityProb : connectivityProbs) {
+			for (double aBound : aBounds) {
+				for (double bBound : bBounds) {
+					for (double packetArrivalProb : packetArrivalProbs)
+						points.add(new SweepPoint(connectivityProb, packetArrivalProb, aBound, bBound));
+				}
+			}
+		}
+		return points;
+	}
+
+	public double getConnectivityProb() {
+		return connectivityProb;
+	}
+
+	public double getPacketArrivalProb() {
+		return packetArrivalProb;
+	}
+
+	public double getABound() {
+		return aBound;
+	}
+
+	public double getBBound() {
+		return bBound;
+	}
+	
+	@Override
+	public String toString() {
+		return "connectivity " + this.connectivityProb + ", lambda " + this.packetArrivalProb + ", a " + this.aBound + ", b " + this.bBound;
+	}
+}
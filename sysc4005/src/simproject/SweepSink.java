@@ -0,0 +1,19 @@
+package simproject;
+
+/**
+ * Receives the results of a sweep as they come in. SweepOrchestrator never
+ * calls a sink from two threads at once.
+ */
+public interface SweepSink {
+	
+	/**
+	 * Called once per replication, in completion order.
+	 */
+	public void replicationCompleted(SweepPoint point, ReplicationResult result);
+	
+	/**
+	 * Called once every replication of point has completed, with the results
+	 * in replication order.
+	 */
+	public void pointCompleted(SweepPoint point, ReplicationResult[] results);
+}
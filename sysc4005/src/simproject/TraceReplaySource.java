@@ -0,0 +1,163 @@
+package simproject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Feeds a trace written by TraceWriter back into a simulator. The file is
+ * mapped read-only a window at a time, and masks are bulk-copied from the
+ * mapping into the simulator's arrays, so traces far larger than the heap
+ * replay without buffering. Several sources can read the same file at once.
+ */
+public class TraceReplaySource implements TrafficSource, AutoCloseable {
+	
+	public static final long DEFAULT_WINDOW_BYTES = 64L << 20;
+	
+	private FileChannel channel;
+	private long windowBytes;
+	private long windowStart;
+	private LongBuffer window;
+	private long fileSize;
+	private int numberOfQueues;
+	private int numberOfServers;
+	private int connectivityWords;
+	private int arrivalWords;
+	private long slots;
+	private long slotsRead;
+	private boolean arrivalsTaken;
+	
+	public TraceReplaySource(Path path, long windowBytes) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(TraceWriter.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			while (header.hasRemaining() && this.channel.read(header, header.position()) >= 0)
+				;
+			header.flip();
+			if (header.remaining() < TraceWriter.HEADER_BYTES || header.getInt() != TraceWriter.MAGIC)
+				throw new IOException("Not a trace file: " + path);
+			int version = header.getInt();
+			if (version != TraceWriter.VERSION)
+				throw new IOException("Unsupported trace version " + version + " in " + path);
+			this.numberOfQueues = header.getInt();
+			this.numberOfServers = header.getInt();
+			this.slots = header.getLong();
+			this.connectivityWords = this.numberOfQueues * ConnectivityMatrix.wordsFor(this.numberOfServers);
+			this.arrivalWords = ConnectivityMatrix.wordsFor(this.numberOfQueues);
+			this.fileSize = this.channel.size();
+			if (this.fileSize != TraceWriter.HEADER_BYTES + 8L * (this.arrivalWords + this.slots * (this.connectivityWords + this.arrivalWords)))
+				throw new IOException("Truncated trace file: " + path);
+		} catch (IOException e) {
+			this.channel.close();
+			throw e;
+		}
+		// windows must hold whole longs
+		this.windowBytes = Math.max(8, windowBytes & ~7L);
+		this.windowStart = TraceWriter.HEADER_BYTES;
+		this.window = LongBuffer.allocate(0);
+		this.slotsRead = 0;
+		this.arrivalsTaken = false;
+	}
+	
+	public TraceReplaySource(Path path) throws IOException {
+		this(path, DEFAULT_WINDOW_BYTES);
+	}
+	
+	private void nextWindow() {
+		this.windowStart += 8L * this.window.capacity();
+		long size = Math.min(this.windowBytes, this.fileSize - this.windowStart);
+		try {
+			this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, this.windowStart, size).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	private void readLongs(long[] words, int count) {
+		int done = 0;
+		while (done < count) {
+			if (!this.window.hasRemaining())
+				this.nextWindow();
+			int n = Math.min(count - done, this.window.remaining());
+			this.window.get(words, done, n);
+			done += n;
+		}
+	}
+	
+	private void skipLongs(int count) {
+		int done = 0;
+		while (done < count) {
+			if (!this.window.hasRemaining())
+				this.nextWindow();
+			int n = Math.min(count - done, this.window.remaining());
+			this.window.position(this.window.position() + n);
+			done += n;
+		}
+	}
+	
+	/**
+	 * @throws IllegalStateException when the trace has no more slots
+	 */
+	@Override
+	public void nextConnectivity(ConnectivityMatrix connectivity) {
+		if (!this.arrivalsTaken)
+			throw new IllegalStateException("Arrivals must be read before the next connectivity");
+		if (this.slotsRead == this.slots)
+			throw new IllegalStateException("Trace ended after " + this.slots + " slots");
+		this.readLongs(connectivity.getWords(), this.connectivityWords);
+		this.slotsRead++;
+		this.arrivalsTaken = false;
+	}
+	
+	@Override
+	public void skipConnectivity() {
+		if (!this.arrivalsTaken)
+			throw new IllegalStateException("Arrivals must be read before the next connectivity");
+		if (this.slotsRead == this.slots)
+			throw new IllegalStateException("Trace ended after " + this.slots + " slots");
+		this.skipLongs(this.connectivityWords);
+		this.slotsRead++;
+		this.arrivalsTaken = false;
+	}
+	
+	/**
+	 * @throws IllegalStateException if called twice without a connectivity read in between
+	 */
+	@Override
+	public int nextArrivals(long[] arrivalMask) {
+		if (this.arrivalsTaken)
+			throw new IllegalStateException("Arrivals already read for this slot");
+		this.arrivalsTaken = true;
+		this.readLongs(arrivalMask, this.arrivalWords);
+		int arrived = 0;
+		for (int w = 0; w < this.arrivalWords; w++)
+			arrived += Long.bitCount(arrivalMask[w]);
+		return arrived;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+
+	public int getNumberOfQueues() {
+		return numberOfQueues;
+	}
+
+	public int getNumberOfServers() {
+		return numberOfServers;
+	}
+
+	public long getSlots() {
+		return slots;
+	}
+	
+	public long getSlotsRead() {
+		return slotsRead;
+	}
+}
@@ -0,0 +1,142 @@
+package simproject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a traffic trace: the initial arrivals, then the connectivity and
+ * arrivals of every slot, as raw little-endian mask words after a fixed
+ * header. Every slot takes the same number of bytes, so TraceReplaySource
+ * can map the file in windows and copy masks straight out of the page cache.
+ *
+ * <pre>
+ * int magic, int version, int queues, int servers, long slots, long reserved
+ * long[wordsFor(queues)]                          initial arrivals
+ * slots x (long[queues * wordsFor(servers)] connectivity, long[wordsFor(queues)] arrivals)
+ * </pre>
+ *
+ * Writes go through a direct buffer rather than a growing mapping, so the
+ * file never has to be truncated while mapped.
+ */
+public class TraceWriter implements AutoCloseable {
+	
+	public static final int MAGIC = 0x544D4953;
+	public static final int VERSION = 1;
+	public static final int HEADER_BYTES = 32;
+	private static final int BUFFER_BYTES = 1 << 20;
+	
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	private LongBuffer longs;
+	private int numberOfQueues;
+	private int numberOfServers;
+	private long slots;
+	private boolean arrivalsWritten;
+	private ConnectivityMatrix slotConnectivity;
+	private long[] slotArrivals;
+	
+	public TraceWriter(Path path, int noQueues, int noServers) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		this.longs = this.buffer.asLongBuffer();
+		this.numberOfQueues = noQueues;
+		this.numberOfServers = noServers;
+		this.slots = 0;
+		this.arrivalsWritten = false;
+		this.channel.position(HEADER_BYTES);
+	}
+	
+	private void writeLongs(long[] words, int count) throws IOException {
+		int done = 0;
+		while (done < count) {
+			if (!this.longs.hasRemaining())
+				this.flush();
+			int n = Math.min(count - done, this.longs.remaining());
+			this.longs.put(words, done, n);
+			done += n;
+		}
+	}
+	
+	private void flush() throws IOException {
+		this.buffer.limit(this.longs.position() * 8);
+		this.buffer.position(0);
+		while (this.buffer.hasRemaining())
+			this.channel.write(this.buffer);
+		this.buffer.clear();
+		this.longs.clear();
+	}
+	
+	/**
+	 * @throws IllegalStateException if the connectivity of the previous slot has not been written
+	 */
+	public void writeArrivals(long[] arrivalMask) throws IOException {
+		if (this.arrivalsWritten)
+			throw new IllegalStateException("Connectivity must be written between two arrival masks");
+		this.writeLongs(arrivalMask, ConnectivityMatrix.wordsFor(this.numberOfQueues));
+		this.arrivalsWritten = true;
+	}
+	
+	/**
+	 * @throws IllegalStateException if the arrivals before this slot have not been written
+	 */
+	public void writeConnectivity(ConnectivityMatrix connectivity) throws IOException {
+		if (!this.arrivalsWritten)
+			throw new IllegalStateException("Arrivals must be written before the next connectivity");
+		this.writeLongs(connectivity.getWords(), connectivity.getWords().length);
+		this.arrivalsWritten = false;
+		this.slots++;
+	}
+	
+	/**
+	 * Records the initial arrivals and then slots slots of traffic, in the
+	 * order a simulator would read them.
+	 */
+	public void write(TrafficSource traffic, long slots) throws IOException {
+		if (this.slotConnectivity == null) {
+			this.slotConnectivity = new ConnectivityMatrix(this.numberOfQueues, this.numberOfServers);
+			this.slotArrivals = new long[ConnectivityMatrix.wordsFor(this.numberOfQueues)];
+		}
+		if (!this.arrivalsWritten) {
+			traffic.nextArrivals(this.slotArrivals);
+			this.writeArrivals(this.slotArrivals);
+		}
+		for (long slot = 0; slot < slots; slot++) {
+			traffic.nextConnectivity(this.slotConnectivity);
+			this.writeConnectivity(this.slotConnectivity);
+			traffic.nextArrivals(this.slotArrivals);
+			this.writeArrivals(this.slotArrivals);
+		}
+	}
+	
+	/**
+	 * Flushes the records and writes the header. A slot whose arrivals were
+	 * never written is dropped.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			this.flush();
+			if (!this.arrivalsWritten && this.slots > 0) {
+				this.slots--;
+				long slotWords = ((long) this.numberOfQueues) * ConnectivityMatrix.wordsFor(this.numberOfServers) + ConnectivityMatrix.wordsFor(this.numberOfQueues);
+				this.channel.truncate(HEADER_BYTES + 8L * (ConnectivityMatrix.wordsFor(this.numberOfQueues) + this.slots * slotWords));
+			}
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(this.numberOfQueues).putInt(this.numberOfServers).putLong(this.slots).putLong(0);
+			header.flip();
+			while (header.hasRemaining())
+				this.channel.write(header, header.position());
+		} finally {
+			this.channel.close();
+		}
+	}
+	
+	public long getSlots() {
+		return slots;
+	}
+}
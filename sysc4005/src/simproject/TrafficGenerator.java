@@ -0,0 +1,122 @@
+package simproject;
+
+import java.io.IOException;
+
+/**
+ * Generates the random part of a simulation: the connectivity of every slot
+ * and the packet arrivals at the end of it. One generator can feed several
+ * simulators so that they see the same trace.
+ */
+public class TrafficGenerator implements TrafficSource {
+	
+	private int numberOfQueues;
+	private int numberOfServers;
+	private double connectivityProb;
+	private double packetArrivalProb;
+	private RandomSource random;
+	private CorrelatedUniformRandom packetRandomGenerator;
+	// Replaces packetRandomGenerator when set, see setPerQueueArrivals
+	private CorrelatedArrivalGenerator perQueueGenerator;
+	private SlotKernel slotKernel;
+	
+	public TrafficGenerator(int noQueues, int noServers, double connectivityProb, double packetArrivalProb, double aBound, double bBound, RandomSource random) {
+		this.numberOfQueues = noQueues;
+		this.numberOfServers = noServers;
+		this.connectivityProb = connectivityProb;
+		this.packetArrivalProb = packetArrivalProb;
+		this.random = random;
+		this.packetRandomGenerator = new CorrelatedUniformRandom(aBound, bBound, random);
+		this.slotKernel = SlotKernels.getDefault();
+	}
+	
+	@Override
+	public void nextConnectivity(ConnectivityMatrix connectivity) {
+		this.slotKernel.fillConnectivity(connectivity, this.connectivityProb, this.random);
+	}
+	
+	/**
+	 * Connectivity draws are independent of everything else, so a skipped slot
+	 * draws nothing.
+	 */
+	@Override
+	public void skipConnectivity() {
+	}
+	
+	@Override
+	public int nextArrivals(long[] arrivalMask) {
+		if (this.perQueueGenerator != null)
+			return this.perQueueGenerator.nextArrivals(this.packetArrivalProb, this.numberOfServers > 1, arrivalMask);
+		return this.slotKernel.nextArrivals(this.packetRandomGenerator, this.packetArrivalProb, this.numberOfServers > 1, this.numberOfQueues, arrivalMask);
+	}
+
+	public boolean isPerQueueArrivals() {
+		return this.perQueueGenerator != null;
+	}
+	
+	/**
+	 * Draws arrivals from a CorrelatedArrivalGenerator, one chain per queue,
+	 * instead of the chain shared by all queues. The slot kernel then only
+	 * applies to connectivity. Set it before the first draw.
+	 */
+	public void setPerQueueArrivals(boolean perQueueArrivals) {
+		if (perQueueArrivals && this.perQueueGenerator == null)
+			this.perQueueGenerator = new CorrelatedArrivalGenerator(this.numberOfQueues, this.packetRandomGenerator.getCorrelatedA(), this.packetRandomGenerator.getCorrelatedB(), this.random);
+		else if (!perQueueArrivals)
+			this.perQueueGenerator = null;
+	}
+	
+	public SlotKernel getSlotKernel() {
+		return slotKernel;
+	}
+
+	public void setSlotKernel(SlotKernel slotKernel) {
+		this.slotKernel = slotKernel;
+	}
+
+	public int getNumberOfQueues() {
+		return numberOfQueues;
+	}
+
+	public int getNumberOfServers() {
+		return numberOfServers;
+	}
+
+	public double getConnectivityProb() {
+		return connectivityProb;
+	}
+
+	public double getPacketArrivalProb() {
+		return packetArrivalProb;
+	}
+	
+	public double getABound() {
+		return this.packetRandomGenerator.getCorrelatedA();
+	}
+	
+	public double getBBound() {
+		return this.packetRandomGenerator.getCorrelatedB();
+	}
+	
+	/**
+	 * Saves the position of the generator in its random streams.
+	 *
+	 * @throws IllegalStateException if the source is not a XoshiroRandomSource
+	 */
+	void writeState(CheckpointWriter out) throws IOException {
+		out.putBoolean(this.perQueueGenerator != null);
+		if (this.perQueueGenerator != null)
+			out.putDoubles(this.perQueueGenerator.getCurrentNumbers(), this.numberOfQueues);
+		Simulator.xoshiro(this.random).writeState(out);
+		out.putDouble(this.packetRandomGenerator.getCurrentNumber());
+	}
+	
+	void readState(CheckpointReader in) throws IOException {
+		// before the random state, since creating the chains draws from it
+		boolean perQueueArrivals = in.getBoolean();
+		this.setPerQueueArrivals(perQueueArrivals);
+		if (perQueueArrivals)
+			in.getDoubles(this.perQueueGenerator.getCurrentNumbers(), this.numberOfQueues);
+		Simulator.xoshiro(this.random).readState(in);
+		this.packetRandomGenerator.setCurrentNumber(in.getDouble());
+	}
+}
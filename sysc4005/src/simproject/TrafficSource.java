@@ -0,0 +1,23 @@
+package simproject;
+
+/**
+ * Supplies the connectivity of every slot and the packet arrivals at the end
+ * of it. A simulator asks for the initial arrivals first, then for
+ * connectivity and arrivals once per slot.
+ */
+public interface TrafficSource {
+	
+	public void nextConnectivity(ConnectivityMatrix connectivity);
+	
+	/**
+	 * Moves past one slot's connectivity without reading it, for slots in
+	 * which nothing can be served.
+	 */
+	public void skipConnectivity();
+	
+	/**
+	 * Writes one arrival bit per queue into arrivalMask and returns the number
+	 * of arrivals.
+	 */
+	public int nextArrivals(long[] arrivalMask);
+}
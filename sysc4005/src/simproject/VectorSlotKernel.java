@@ -0,0 +1,121 @@
+package simproject;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SlotKernel on the incubating Vector API. Random bits for a whole row are
+ * drawn in bulk, then compared a lane group at a time and packed into mask
+ * words with VectorMask.toLong. The correlated arrival recurrence depends on
+ * the previous value, so that part stays scalar. Bits match ScalarSlotKernel
+ * exactly.
+ *
+ * Needs --add-modules jdk.incubator.vector at run time; create it through
+ * SlotKernels, which falls back to the scalar kernel when the module is missing.
+ */
+public class VectorSlotKernel implements SlotKernel {
+	
+	public static final String NAME = "vector";
+	
+	private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+	
+	private long[] randomBits = new long[0];
+	private double[] uniforms = new double[0];
+	
+	@Override
+	public String getName() {
+		return NAME;
+	}
+	
+	private long[] randomBits(int count) {
+		if (this.randomBits.length < count)
+			this.randomBits = new long[count];
+		return this.randomBits;
+	}
+	
+	private double[] uniforms(int count) {
+		if (this.uniforms.length < count)
+			this.uniforms = new double[count];
+		return this.uniforms;
+	}
+	
+	@Override
+	public void fillConnectivity(ConnectivityMatrix connectivity, double prob, RandomSource random) {
+		if (!(prob >= 0.0 && prob <= 1.0))
+			throw new IllegalArgumentException("Probability must be between 0.0 and 1.0");
+		long threshold = (long) Math.ceil(prob * 0x1.0p53);
+		int numberOfServers = connectivity.getNumberOfServers();
+		int wordsPerQueue = connectivity.getWordsPerQueue();
+		long[] words = connectivity.getWords();
+		long[] bits = this.randomBits(numberOfServers);
+		int lanes = LONGS.length();
+		int bound = LONGS.loopBound(numberOfServers);
+		for (int q = 0; q < connectivity.getNumberOfQueues(); q++) {
+			int rowStart = q * wordsPerQueue;
+			for (int w = 0; w < wordsPerQueue; w++)
+				words[rowStart + w] = 0;
+			random.nextLongs(bits, numberOfServers);
+			int s = 0;
+			for (; s < bound; s += lanes) {
+				long below = LongVector.fromArray(LONGS, bits, s).lanewise(VectorOperators.LSHR, 11).compare(VectorOperators.LT, threshold).toLong();
+				words[rowStart + (s >>> 6)] |= below << s;
+			}
+			for (; s < numberOfServers; s++) {
+				if ((bits[s] >>> 11) < threshold)
+					words[rowStart + (s >>> 6)] |= (1L << s);
+			}
+		}
+	}
+	
+	@Override
+	public int nextArrivals(CorrelatedUniformRandom generator, double prob, boolean correlated, int numberOfQueues, long[] mask) {
+		double a = 0 - generator.getCorrelatedA();
+		double b = generator.getCorrelatedB();
+		if (!(a < b)) throw new IllegalArgumentException("Invalid range");
+		double range = b - a;
+		long[] bits = this.randomBits(numberOfQueues);
+		double[] values = this.uniforms(numberOfQueues);
+		generator.getRandomSource().nextLongs(bits, numberOfQueues);
+		
+		// same arithmetic as XoshiroRandomSource.uniform(a, b)
+		int lanes = LONGS.length();
+		int bound = LONGS.loopBound(numberOfQueues);
+		int q = 0;
+		for (; q < bound; q += lanes) {
+			DoubleVector doubles = (DoubleVector) LongVector.fromArray(LONGS, bits, q).lanewise(VectorOperators.LSHR, 11).convertShape(VectorOperators.L2D, DOUBLES, 0);
+			doubles.mul(0x1.0p-53).mul(range).add(a).intoArray(values, q);
+		}
+		for (; q < numberOfQueues; q++)
+			values[q] = a + ((bits[q] >>> 11) * 0x1.0p-53) * range;
+		
+		double current = generator.getCurrentNumber();
+		if (correlated) {
+			for (q = 0; q < numberOfQueues; q++) {
+				current = Math.abs(current + values[q]) % 1;
+				values[q] = current % .65;
+			}
+		} else {
+			for (q = 0; q < numberOfQueues; q++) {
+				current = (current + Math.abs(values[q])) % 1;
+				values[q] = current;
+			}
+		}
+		generator.setCurrentNumber(current);
+		
+		for (int w = 0; w < mask.length; w++)
+			mask[w] = 0;
+		for (q = 0; q < bound; q += lanes)
+			mask[q >>> 6] |= DoubleVector.fromArray(DOUBLES, values, q).compare(VectorOperators.LE, prob).toLong() << q;
+		for (; q < numberOfQueues; q++) {
+			if (values[q] <= prob)
+				mask[q >>> 6] |= (1L << q);
+		}
+		int arrived = 0;
+		for (int w = 0; w < mask.length; w++)
+			arrived += Long.bitCount(mask[w]);
+		return arrived;
+	}
+}
@@ -0,0 +1,114 @@
+package simproject;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Detects the end of the initial transient with MSER-5: observations are
+ * averaged in batches of five, and the truncation point is the number of
+ * leading batches whose deletion minimises the marginal standard error of the
+ * remaining batch means. The search covers the first half of the batches,
+ * where a minimum at the edge of that range still means the transient has
+ * not ended; the estimate is trusted once the point lies in the first
+ * quarter.
+ */
+public class WarmupDetector {
+	
+	public static final int BATCH_SIZE = 5;
+	public static final int MIN_BATCHES = 100;
+	
+	private double[] batchMeans;
+	private int numberOfBatches;
+	private double currentSum;
+	private int currentCount;
+	
+	public WarmupDetector() {
+		this.batchMeans = new double[256];
+		this.reset();
+	}
+	
+	public void reset() {
+		this.numberOfBatches = 0;
+		this.currentSum = 0;
+		this.currentCount = 0;
+	}
+	
+	public void add(double x) {
+		this.currentSum += x;
+		this.currentCount++;
+		if (this.currentCount == BATCH_SIZE) {
+			if (this.numberOfBatches == this.batchMeans.length)
+				this.batchMeans = Arrays.copyOf(this.batchMeans, this.numberOfBatches << 1);
+			this.batchMeans[this.numberOfBatches++] = this.currentSum / BATCH_SIZE;
+			this.currentSum = 0;
+			this.currentCount = 0;
+		}
+	}
+	
+	/**
+	 * Returns the number of leading batches to delete, d* = argmin over d of
+	 * sum_{i >= d} (Y_i - mean_d)^2 / (n - d)^2, searched over the first half.
+	 */
+	public static int truncationPoint(double[] batchMeans, int n) {
+		double sum = 0;
+		double sumOfSquares = 0;
+		int best = 0;
+		double bestStatistic = Double.POSITIVE_INFINITY;
+		for (int d = n - 1; d >= 0; d--) {
+			sum += batchMeans[d];
+			sumOfSquares += batchMeans[d] * batchMeans[d];
+			if (d > n / 2)
+				continue;
+			double remaining = n - d;
+			double statistic = (sumOfSquares - sum * sum / remaining) / (remaining * remaining);
+			if (statistic <= bestStatistic) {
+				bestStatistic = statistic;
+				best = d;
+			}
+		}
+		return best;
+	}
+	
+	public int getTruncationBatch() {
+		return truncationPoint(this.batchMeans, this.numberOfBatches);
+	}
+	
+	/**
+	 * Returns the number of observations to delete at the current truncation point.
+	 */
+	public long getTruncationPoint() {
+		return ((long) this.getTruncationBatch()) * BATCH_SIZE;
+	}
+	
+	/**
+	 * Returns true once enough batches are in and the truncation point lies
+	 * within the first quarter of them. Testing against the half searched by
+	 * truncationPoint would only fail when the minimum sits exactly on its
+	 * edge.
+	 */
+	public boolean isSteady() {
+		if (this.numberOfBatches < MIN_BATCHES)
+			return false;
+		return this.getTruncationBatch() <= this.numberOfBatches / 4;
+	}
+	
+	public int getNumberOfBatches() {
+		return numberOfBatches;
+	}
+	
+	void writeState(CheckpointWriter out) throws IOException {
+		out.putInt(this.currentCount);
+		out.putDouble(this.currentSum);
+		out.putInt(this.numberOfBatches);
+		out.putDoubles(this.batchMeans, this.numberOfBatches);
+	}
+	
+	void readState(CheckpointReader in) throws IOException {
+		this.currentCount = in.getInt();
+		this.currentSum = in.getDouble();
+		this.numberOfBatches = in.getInt();
+		if (this.batchMeans.length < this.numberOfBatches)
+			this.batchMeans = new double[Integer.highestOneBit(this.numberOfBatches) << 1];
+		in.getDoubles(this.batchMeans, this.numberOfBatches);
+	}
+}
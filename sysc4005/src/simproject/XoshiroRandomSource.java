@@ -0,0 +1,168 @@
+package simproject;
+
+import java.io.IOException;
+
+/**
+ * xoshiro256** generator (Blackman and Vigna). Seeding goes through SplitMix64.
+ * {@link #split()} seeds the child from four outputs of the parent, each run
+ * through SplitMix64, so splits can be nested to any depth: a child, its own
+ * children and the rest of the parent's stream are unrelated points on the
+ * 2^256 - 1 cycle. Use {@link #jump()} on copies instead when a fixed number
+ * of streams must be provably disjoint.
+ */
+public class XoshiroRandomSource implements RandomSource {
+	
+	private static final long[] JUMP = { 0x180ec6d33cfd0abaL, 0xd5a61266f0c9392cL, 0xa9582618e03fc9aaL, 0x39abdc4529b1661cL };
+	
+	private long s0;
+	private long s1;
+	private long s2;
+	private long s3;
+	
+	public XoshiroRandomSource(long seed) {
+		long z = seed;
+		z += 0x9E3779B97F4A7C15L;
+		this.s0 = mix(z);
+		z += 0x9E3779B97F4A7C15L;
+		this.s1 = mix(z);
+		z += 0x9E3779B97F4A7C15L;
+		this.s2 = mix(z);
+		z += 0x9E3779B97F4A7C15L;
+		this.s3 = mix(z);
+	}
+	
+	public XoshiroRandomSource() {
+		this(System.nanoTime());
+	}
+	
+	private XoshiroRandomSource(long s0, long s1, long s2, long s3) {
+		this.s0 = s0;
+		this.s1 = s1;
+		this.s2 = s2;
+		this.s3 = s3;
+	}
+	
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	@Override
+	public long nextLong() {
+		long result = Long.rotateLeft(this.s1 * 5, 7) * 9;
+		long t = this.s1 << 17;
+		this.s2 ^= this.s0;
+		this.s3 ^= this.s1;
+		this.s1 ^= this.s2;
+		this.s0 ^= this.s3;
+		this.s2 ^= t;
+		this.s3 = Long.rotateLeft(this.s3, 45);
+		return result;
+	}
+
+	@Override
+	public void nextLongs(long[] buffer, int count) {
+		long x0 = this.s0;
+		long x1 = this.s1;
+		long x2 = this.s2;
+		long x3 = this.s3;
+		for (int i = 0; i < count; i++) {
+			buffer[i] = Long.rotateLeft(x1 * 5, 7) * 9;
+			long t = x1 << 17;
+			x2 ^= x0;
+			x3 ^= x1;
+			x1 ^= x2;
+			x0 ^= x3;
+			x2 ^= t;
+			x3 = Long.rotateLeft(x3, 45);
+		}
+		this.s0 = x0;
+		this.s1 = x1;
+		this.s2 = x2;
+		this.s3 = x3;
+	}
+
+	@Override
+	public double nextDouble() {
+		return (this.nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	@Override
+	public int nextInt(int bound) {
+		if (bound <= 0) throw new IllegalArgumentException("Parameter bound must be positive");
+		int r = (int) (this.nextLong() >>> 33);
+		int m = bound - 1;
+		if ((bound & m) == 0)
+			return (int) ((bound * (long) r) >> 31);
+		for (int u = r; u - (r = u % bound) + m < 0; u = (int) (this.nextLong() >>> 33))
+			;
+		return r;
+	}
+
+	@Override
+	public double uniform(double a, double b) {
+		if (!(a < b)) throw new IllegalArgumentException("Invalid range");
+		return a + this.nextDouble() * (b - a);
+	}
+
+	@Override
+	public boolean bernoulli(double p) {
+		if (!(p >= 0.0 && p <= 1.0))
+			throw new IllegalArgumentException("Probability must be between 0.0 and 1.0");
+		return this.nextDouble() < p;
+	}
+
+	@Override
+	public RandomSource split() {
+		// Jumping the parent and handing out the old state is only disjoint for
+		// a flat list of splits: a child's next split then lands on the parent's
+		// next child. Hashed outputs keep every level apart.
+		long t0 = mix(this.nextLong());
+		long t1 = mix(this.nextLong());
+		long t2 = mix(this.nextLong());
+		long t3 = mix(this.nextLong());
+		if ((t0 | t1 | t2 | t3) == 0)
+			t0 = 0x9E3779B97F4A7C15L;
+		return new XoshiroRandomSource(t0, t1, t2, t3);
+	}
+	
+	/**
+	 * Advances this generator by 2^128 draws.
+	 */
+	public void jump() {
+		long t0 = 0;
+		long t1 = 0;
+		long t2 = 0;
+		long t3 = 0;
+		for (long word : JUMP) {
+			for (int b = 0; b < 64; b++) {
+				if ((word & (1L << b)) != 0) {
+					t0 ^= this.s0;
+					t1 ^= this.s1;
+					t2 ^= this.s2;
+					t3 ^= this.s3;
+				}
+				this.nextLong();
+			}
+		}
+		this.s0 = t0;
+		this.s1 = t1;
+		this.s2 = t2;
+		this.s3 = t3;
+	}
+	
+	void writeState(CheckpointWriter out) throws IOException {
+		out.putLong(this.s0);
+		out.putLong(this.s1);
+		out.putLong(this.s2);
+		out.putLong(this.s3);
+	}
+	
+	void readState(CheckpointReader in) throws IOException {
+		this.s0 = in.getLong();
+		this.s1 = in.getLong();
+		this.s2 = in.getLong();
+		this.s3 = in.getLong();
+	}
+}
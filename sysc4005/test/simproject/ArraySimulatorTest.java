@@ -0,0 +1,40 @@
+package simproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ArraySimulatorTest {
+	
+	private static final int TIMES = TraceReplaySourceTest.TIMES;
+	
+	@TempDir
+	Path tempDir;
+	
+	/**
+	 * Skipping idle slots only changes the draws a policy makes from the
+	 * engine's stream, so over the same trace a deterministic policy gives
+	 * the same run with and without it.
+	 */
+	@Test
+	void eventsMatchArraysOverTrace() throws IOException {
+		Path trace = TraceReplaySourceTest.writeTrace(this.tempDir, 12, 4, 8);
+		for (String policy : new String[] { LCSFLCQPolicy.NAME, MaxWeightPolicy.NAME }) {
+			ArraySimulator arrays = new ArraySimulator(12, 4, new XoshiroRandomSource(1));
+			ArraySimulator events = (ArraySimulator) SimulationEngines.create(SimulationEngines.EVENTS, 12, 4, new XoshiroRandomSource(1));
+			for (ArraySimulator engine : new ArraySimulator[] { arrays, events }) {
+				engine.setSchedulingPolicy(SchedulingPolicies.forName(policy));
+				try (TraceReplaySource replay = new TraceReplaySource(trace)) {
+					engine.runSimulation(TIMES, replay);
+				}
+			}
+			assertEquals(arrays.getTotalPacketsArrived(), events.getTotalPacketsArrived(), policy);
+			assertEquals(arrays.getPacketsServed(), events.getPacketsServed(), policy);
+			assertEquals(arrays.calculateAvgOccupancy(TIMES), events.calculateAvgOccupancy(TIMES), 1e-12, policy);
+		}
+	}
+}
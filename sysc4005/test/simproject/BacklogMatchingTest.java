@@ -0,0 +1,98 @@
+package simproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class BacklogMatchingTest {
+	
+	private int numberOfQueues;
+	private int numberOfServers;
+	private boolean[][] connected;
+	private int[] backlogs;
+	private long best;
+	
+	@Test
+	void exactMatchesBruteForce() {
+		Random random = new Random(1);
+		for (int trial = 0; trial < 5000; trial++) {
+			ConnectivityMatrix connectivity = this.randomGraph(random);
+			BacklogMatching matching = new BacklogMatching(this.numberOfQueues, this.numberOfServers);
+			System.arraycopy(this.backlogs, 0, matching.getBacklogs(), 0, this.numberOfQueues);
+			matching.matchExact(connectivity);
+			this.best = 0;
+			this.bruteForce(0, new int[this.numberOfQueues], 0);
+			assertEquals(this.best, this.weight(matching), "trial " + trial);
+		}
+	}
+	
+	@Test
+	void greedyIsFeasibleAndNoBetterThanExact() {
+		Random random = new Random(2);
+		for (int trial = 0; trial < 5000; trial++) {
+			ConnectivityMatrix connectivity = this.randomGraph(random);
+			BacklogMatching matching = new BacklogMatching(this.numberOfQueues, this.numberOfServers);
+			System.arraycopy(this.backlogs, 0, matching.getBacklogs(), 0, this.numberOfQueues);
+			matching.matchGreedy(connectivity);
+			this.best = 0;
+			this.bruteForce(0, new int[this.numberOfQueues], 0);
+			assertTrue(this.weight(matching) <= this.best, "trial " + trial);
+		}
+	}
+	
+	private ConnectivityMatrix randomGraph(Random random) {
+		this.numberOfQueues = 1 + random.nextInt(5);
+		this.numberOfServers = 1 + random.nextInt(7);
+		ConnectivityMatrix connectivity = new ConnectivityMatrix(this.numberOfQueues, this.numberOfServers);
+		this.connected = new boolean[this.numberOfQueues][this.numberOfServers];
+		this.backlogs = new int[this.numberOfQueues];
+		for (int q = 0; q < this.numberOfQueues; q++) {
+			this.backlogs[q] = random.nextInt(4);
+			for (int s = 0; s < this.numberOfServers; s++) {
+				if (random.nextDouble() < 0.45) {
+					this.connected[q][s] = true;
+					connectivity.setConnected(q, s, true);
+				}
+			}
+		}
+		return connectivity;
+	}
+	
+	/**
+	 * Checks that the matching only uses connected pairs and serves no queue
+	 * more often than its backlog, and returns its total weight.
+	 */
+	private long weight(BacklogMatching matching) {
+		int[] served = new int[this.numberOfQueues];
+		long weight = 0;
+		for (int s = 0; s < this.numberOfServers; s++) {
+			int q = matching.getServerQueue(s);
+			if (q >= 0) {
+				assertTrue(this.connected[q][s], "server " + s + " matched to unconnected queue " + q);
+				served[q]++;
+				weight += this.backlogs[q];
+			}
+		}
+		for (int q = 0; q < this.numberOfQueues; q++)
+			assertTrue(served[q] <= this.backlogs[q], "queue " + q + " served beyond its backlog");
+		return weight;
+	}
+	
+	private void bruteForce(int s, int[] served, long weight) {
+		if (s == this.numberOfServers) {
+			this.best = Math.max(this.best, weight);
+			return;
+		}
+		this.bruteForce(s + 1, served, weight);
+		for (int q = 0; q < this.numberOfQueues; q++) {
+			if (this.connected[q][s] && served[q] < this.backlogs[q]) {
+				served[q]++;
+				this.bruteForce(s + 1, served, weight + this.backlogs[q]);
+				served[q]--;
+			}
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package simproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class BatchMeansTest {
+	
+	@Test
+	void halfWidthOfKnownSequence() {
+		BatchMeans batchMeans = new BatchMeans(2);
+		// batches (1, 3), (5, 7), (2, 2) and a partial batch that is left out
+		for (double x : new double[] { 1, 3, 5, 7, 2, 2, 4 })
+			batchMeans.add(x);
+		assertEquals(3, batchMeans.getNumberOfBatches());
+		// means 2, 6, 2: mean 10/3, variance 16/3, standard error 4/3
+		assertEquals(10.0 / 3, batchMeans.getMean(), 1e-12);
+		assertEquals(16.0 / 3, batchMeans.getBatchStatistics().getVariance(), 1e-12);
+		assertEquals(4.3027 * 4 / 3, batchMeans.getHalfWidth(0.95), 1e-3);
+	}
+	
+	@Test
+	void resetDropsPartialBatch() {
+		BatchMeans batchMeans = new BatchMeans(3);
+		batchMeans.add(100);
+		batchMeans.add(100);
+		batchMeans.reset();
+		for (double x : new double[] { 1, 2, 3 })
+			batchMeans.add(x);
+		assertEquals(1, batchMeans.getNumberOfBatches());
+		assertEquals(2, batchMeans.getMean());
+	}
+}
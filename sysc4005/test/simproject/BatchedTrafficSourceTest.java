@@ -0,0 +1,28 @@
+package simproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class BatchedTrafficSourceTest {
+	
+	private static final int TIMES = 3000;
+	
+	@Test
+	void batchedTrafficMatchesUnbatched() {
+		for (boolean producerThread : new boolean[] { false, true }) {
+			ArraySimulator expected = new ArraySimulator(40, 16, new XoshiroRandomSource(3));
+			expected.runSimulation(TIMES, 0.3, 0.15, 0.1, 0.1);
+			
+			// runSimulation draws the traffic from the first split of the engine's stream
+			RandomSource random = new XoshiroRandomSource(3);
+			TrafficGenerator traffic = new TrafficGenerator(40, 16, 0.3, 0.15, 0.1, 0.1, random.split());
+			ArraySimulator actual = new ArraySimulator(40, 16, random);
+			try (BatchedTrafficSource batched = new BatchedTrafficSource(traffic, 64, producerThread)) {
+				actual.runSimulation(TIMES, batched);
+			}
+			assertEquals(expected.getTotalPacketsArrived(), actual.getTotalPacketsArrived());
+			assertEquals(expected.calculateAvgOccupancy(TIMES), actual.calculateAvgOccupancy(TIMES));
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package simproject;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CheckpointTest {
+	
+	private static final int TIMES = 20000;
+	private static final int INTERVAL = 997;
+	
+	@TempDir
+	Path tempDir;
+	
+	/**
+	 * Stands in for the default policy, under the same name so the checkpoint
+	 * resumes with it, and fails when the run reaches crashSlot.
+	 */
+	private static class CrashingPolicy implements SchedulingPolicy {
+		
+		private SchedulingPolicy policy = SchedulingPolicies.getDefault();
+		private long crashSlot;
+		
+		CrashingPolicy(long crashSlot) {
+			this.crashSlot = crashSlot;
+		}
+		
+		@Override
+		public String getName() {
+			return this.policy.getName();
+		}
+		
+		@Override
+		public void schedule(Simulator simulator) {
+			if (simulator.getCurrentTimeSlot() == this.crashSlot)
+				throw new IllegalStateException("crash at slot " + this.crashSlot);
+			this.policy.schedule(simulator);
+		}
+	}
+	
+	@Test
+	void resumedRunMatchesUninterruptedRun() throws IOException {
+		Simulator expected = this.newSimulator(21L);
+		expected.runSimulation(TIMES, 0.5, 0.1, 0.1, 0.1);
+		
+		// during warm-up, just after a checkpoint, and late in the recorded slots
+		for (long crashSlot : new long[] { 1500, 2 * INTERVAL + 1, 19000 }) {
+			Path checkpoint = this.tempDir.resolve("run-" + crashSlot + ".ckpt");
+			Simulator crashed = this.newSimulator(21L);
+			crashed.setSchedulingPolicy(new CrashingPolicy(crashSlot));
+			crashed.setCheckpointing(checkpoint, INTERVAL);
+			assertThrows(IllegalStateException.class, () -> crashed.runSimulation(TIMES, 0.5, 0.1, 0.1, 0.1));
+			
+			Simulator resumed = this.newSimulator(0L);
+			resumed.resumeSimulation(checkpoint);
+			String label = "crash at slot " + crashSlot;
+			assertEquals(expected.getWarmupSlots(), resumed.getWarmupSlots(), label);
+			assertEquals(expected.getTotalPacketsArrived(), resumed.getTotalPacketsArrived(), label);
+			assertEquals(expected.getTotalPacketsAttempted(), resumed.getTotalPacketsAttempted(), label);
+			assertEquals(expected.calculateAvgOccupancy(TIMES), resumed.calculateAvgOccupancy(TIMES), label);
+			assertEquals(expected.calculateOccupancyHalfWidth(0.95), resumed.calculateOccupancyHalfWidth(0.95), label);
+			assertEquals(expected.calculateAvgDelay(), resumed.calculateAvgDelay(), label);
+		}
+	}
+	
+	@Test
+	void failedWriteKeepsPreviousCheckpoint() throws IOException {
+		Path checkpoint = this.tempDir.resolve("writer.ckpt");
+		try (CheckpointWriter out = new CheckpointWriter(checkpoint)) {
+			out.putLong(42);
+			out.commit();
+		}
+		byte[] committed = Files.readAllBytes(checkpoint);
+		
+		assertThrows(IllegalStateException.class, () -> {
+			try (CheckpointWriter out = new CheckpointWriter(checkpoint)) {
+				out.putLong(7);
+				throw new IllegalStateException("failed mid-write");
+			}
+		});
+		assertArrayEquals(committed, Files.readAllBytes(checkpoint));
+		assertFalse(Files.exists(checkpoint.resolveSibling("writer.ckpt.tmp")));
+		try (CheckpointReader in = new CheckpointReader(checkpoint)) {
+			assertEquals(42, in.getLong());
+		}
+	}
+	
+	private Simulator newSimulator(long seed) {
+		Simulator simulator = new Simulator(12, 4, seed);
+		simulator.setWarmupDetection(true);
+		return simulator;
+	}
+}
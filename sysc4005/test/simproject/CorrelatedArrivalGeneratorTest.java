@@ -0,0 +1,77 @@
+package simproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class CorrelatedArrivalGeneratorTest {
+	
+	private static final int SLOTS = 200000;
+	
+	@Test
+	void matchesSharedChainWithCorrelatedDraw() {
+		assertMatchesSharedChain(5, 0.1, 0.1, 0.1, true);
+		assertMatchesSharedChain(5, 0.1, 0.3, 0.3, true);
+		assertMatchesSharedChain(20, 0.05, 0.05, 0.3, true);
+	}
+	
+	@Test
+	void matchesSharedChainWithUncorrelatedDraw() {
+		assertMatchesSharedChain(5, 0.1, 0.1, 0.3, false);
+		assertMatchesSharedChain(20, 0.05, 0.05, 0.3, false);
+	}
+	
+	/**
+	 * Compares the arrival rate and lag-1 correlation of each queue, averaged
+	 * over the queues, against the chain of CorrelatedUniformRandom walked
+	 * across the same number of queues.
+	 */
+	private static void assertMatchesSharedChain(int numberOfQueues, double a, double b, double prob, boolean correlated) {
+		CorrelatedUniformRandom shared = new CorrelatedUniformRandom(a, b, new XoshiroRandomSource(5));
+		long[] mask = new long[ConnectivityMatrix.wordsFor(numberOfQueues)];
+		int[][] expected = new int[SLOTS][numberOfQueues];
+		for (int slot = 0; slot < SLOTS; slot++) {
+			shared.nextArrivals(prob, correlated, numberOfQueues, mask);
+			unpack(mask, expected[slot]);
+		}
+		CorrelatedArrivalGenerator perQueue = new CorrelatedArrivalGenerator(numberOfQueues, a, b, new XoshiroRandomSource(7));
+		int[][] actual = new int[SLOTS][numberOfQueues];
+		for (int slot = 0; slot < SLOTS; slot++) {
+			perQueue.nextArrivals(prob, correlated, mask);
+			unpack(mask, actual[slot]);
+		}
+		String label = numberOfQueues + " queues, a=" + a + ", b=" + b + ", p=" + prob + ", correlated=" + correlated;
+		double[] expectedStats = rateAndLag1(expected);
+		double[] actualStats = rateAndLag1(actual);
+		assertEquals(expectedStats[0], actualStats[0], 0.01, "rate with " + label);
+		assertEquals(expectedStats[1], actualStats[1], 0.02, "lag-1 correlation with " + label);
+	}
+	
+	private static void unpack(long[] mask, int[] arrivals) {
+		for (int q = 0; q < arrivals.length; q++)
+			arrivals[q] = (int) (mask[q >>> 6] >>> q) & 1;
+	}
+	
+	private static double[] rateAndLag1(int[][] arrivals) {
+		int numberOfQueues = arrivals[0].length;
+		double rate = 0;
+		double correlation = 0;
+		for (int q = 0; q < numberOfQueues; q++) {
+			double sum = 0;
+			for (int[] slot : arrivals)
+				sum += slot[q];
+			double mean = sum / arrivals.length;
+			double variance = 0;
+			double covariance = 0;
+			for (int slot = 0; slot < arrivals.length; slot++) {
+				double centred = arrivals[slot][q] - mean;
+				variance += centred * centred;
+				if (slot > 0)
+					covariance += centred * (arrivals[slot - 1][q] - mean);
+			}
+			rate += mean;
+			correlation += covariance / variance;
+		}
+		return new double[] { rate / numberOfQueues, correlation / numberOfQueues };
+	}
+}
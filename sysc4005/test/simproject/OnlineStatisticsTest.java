@@ -0,0 +1,73 @@
+package simproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class OnlineStatisticsTest {
+	
+	private static double[] sample(long seed, int n) {
+		Random random = new Random(seed);
+		double[] values = new double[n];
+		for (int i = 0; i < n; i++)
+			values[i] = 1e6 + random.nextGaussian() * 3;
+		return values;
+	}
+	
+	private static OnlineStatistics of(double[] values, int from, int to) {
+		OnlineStatistics statistics = new OnlineStatistics();
+		for (int i = from; i < to; i++)
+			statistics.add(values[i]);
+		return statistics;
+	}
+	
+	@Test
+	void meanAndVarianceMatchTwoPass() {
+		double[] values = sample(1, 10000);
+		double mean = 0;
+		for (double x : values)
+			mean += x;
+		mean /= values.length;
+		double squares = 0;
+		for (double x : values)
+			squares += (x - mean) * (x - mean);
+		double variance = squares / (values.length - 1);
+		
+		OnlineStatistics statistics = of(values, 0, values.length);
+		assertEquals(values.length, statistics.getCount());
+		assertEquals(mean, statistics.getMean(), 1e-9);
+		assertEquals(variance, statistics.getVariance(), variance * 1e-9);
+	}
+	
+	@Test
+	void mergeMatchesSinglePass() {
+		double[] values = sample(2, 5000);
+		OnlineStatistics whole = of(values, 0, values.length);
+		for (int split : new int[] { 0, 1, 1234, 4999, 5000 }) {
+			OnlineStatistics merged = of(values, 0, split);
+			merged.merge(of(values, split, values.length));
+			assertEquals(whole.getCount(), merged.getCount());
+			assertEquals(whole.getMean(), merged.getMean(), 1e-6);
+			assertEquals(whole.getVariance(), merged.getVariance(), whole.getVariance() * 1e-9);
+			assertEquals(whole.getMin(), merged.getMin());
+			assertEquals(whole.getMax(), merged.getMax());
+		}
+	}
+	
+	@Test
+	void smallCounts() {
+		OnlineStatistics statistics = new OnlineStatistics();
+		assertEquals(0, statistics.getMean());
+		assertEquals(0, statistics.getVariance());
+		assertEquals(Double.POSITIVE_INFINITY, statistics.getHalfWidth(0.95));
+		statistics.add(4);
+		assertEquals(0, statistics.getVariance());
+		assertEquals(Double.POSITIVE_INFINITY, statistics.getHalfWidth(0.95));
+		statistics.add(6);
+		assertEquals(2, statistics.getVariance());
+		// t(0.95, 1) * sqrt(2 / 2)
+		assertEquals(12.7062, statistics.getHalfWidth(0.95), 5e-4);
+	}
+}
@@ -0,0 +1,22 @@
+package simproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class PartitionedTrafficTest {
+	
+	@Test
+	void partitionedRunDoesNotDependOnThreads() {
+		int numberOfQueues = 3 * PartitionedTraffic.BLOCK_QUEUES + 100;
+		ArraySimulator single = new ArraySimulator(numberOfQueues, 8, 5L);
+		single.setWorkerThreads(1);
+		single.runSimulation(200, 0.5, 0.2, 0.1, 0.1);
+		ArraySimulator several = new ArraySimulator(numberOfQueues, 8, 5L);
+		several.setWorkerThreads(4);
+		several.runSimulation(200, 0.5, 0.2, 0.1, 0.1);
+		assertEquals(single.getTotalPacketsArrived(), several.getTotalPacketsArrived());
+		assertEquals(single.getPacketsServed(), several.getPacketsServed());
+		assertEquals(single.calculateAvgOccupancy(200), several.calculateAvgOccupancy(200));
+	}
+}
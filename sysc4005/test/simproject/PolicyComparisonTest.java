@@ -0,0 +1,38 @@
+package simproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class PolicyComparisonTest {
+	
+	private static final int TIMES = 20000;
+	
+	@Test
+	void everyPolicyMatchesAStandaloneRun() {
+		int[][] topologies = { { 5, 3 }, { 5, 1 } };
+		for (int[] topology : topologies) {
+			List<SchedulingPolicy> policies = new ArrayList<SchedulingPolicy>();
+			for (String name : SchedulingPolicies.getNames()) {
+				if (name.endsWith("single") == (topology[1] == 1))
+					policies.add(SchedulingPolicies.forName(name));
+			}
+			PolicyComparison comparison = new PolicyComparison(topology[0], topology[1], 11, policies);
+			comparison.runSimulation(TIMES, 0.5, 0.15, 0.1, 0.1);
+			double[] averages = comparison.calculateAvgOccupancies(TIMES);
+			for (int i = 0; i < policies.size(); i++) {
+				Simulator standalone = new Simulator(topology[0], topology[1], 11L);
+				standalone.setSchedulingPolicy(policies.get(i));
+				standalone.runSimulation(TIMES, 0.5, 0.15, 0.1, 0.1);
+				Simulator compared = comparison.getSimulators()[i];
+				String label = topology[0] + "x" + topology[1] + " " + policies.get(i).getName();
+				assertEquals(standalone.calculateAvgOccupancy(TIMES), averages[i], label);
+				assertEquals(standalone.getTotalPacketsArrived(), compared.getTotalPacketsArrived(), label);
+				assertEquals(standalone.calculateAvgDelay(), compared.calculateAvgDelay(), label);
+			}
+		}
+	}
+}
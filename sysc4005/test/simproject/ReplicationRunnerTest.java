@@ -0,0 +1,137 @@
+package simproject;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class ReplicationRunnerTest {
+	
+	private static final double[] LAMBDAS = { 0.1, 0.1, 0.1 };
+	
+	/**
+	 * Every lambda is the same, so two replications with the same stream
+	 * would report the same occupancy.
+	 */
+	@Test
+	void precisionStreamsDoNotRepeatAcrossLambdas() {
+		ReplicationRunner runner = new ReplicationRunner(2, 42);
+		try {
+			SequentialStoppingRule rule = new SequentialStoppingRule(1e-9, 0.95, 4, 4 * 2000L);
+			SequentialResult[] results = runner.runUntilPrecision(2000, 0.5, LAMBDAS, 0.1, 0.1, rule);
+			Set<Double> seen = new HashSet<Double>();
+			for (SequentialResult result : results) {
+				assertEquals(4, result.getReplications().size());
+				for (ReplicationResult replication : result.getReplications())
+					assertTrue(seen.add(replication.getAverageOccupancy()), "lambda " + result.getPacketArrivalProb() + " replication " + replication.getReplication() + " repeats another stream");
+			}
+		} finally {
+			runner.shutdown();
+		}
+	}
+	
+	/**
+	 * Each lambda stops at the first replication whose prefix meets the
+	 * precision, whatever the number of threads.
+	 */
+	@Test
+	void precisionStopsAtFirstSatisfiedPrefix() {
+		SequentialStoppingRule rule = new SequentialStoppingRule(0.05, 0.95, 3, Long.MAX_VALUE);
+		double[] lambdas = { 0.05, 0.1, 0.15 };
+		SequentialResult[][] results = new SequentialResult[2][];
+		int[] threads = { 1, 4 };
+		for (int i = 0; i < threads.length; i++) {
+			ReplicationRunner runner = new ReplicationRunner(threads[i], 11);
+			try {
+				results[i] = runner.runUntilPrecision(1000, 0.5, lambdas, 0.1, 0.1, rule);
+			} finally {
+				runner.shutdown();
+			}
+		}
+		for (int lambda = 0; lambda < lambdas.length; lambda++) {
+			SequentialResult result = results[0][lambda];
+			assertTrue(result.isConverged());
+			OnlineStatistics prefix = new OnlineStatistics();
+			for (ReplicationResult replication : result.getReplications()) {
+				if (prefix.getCount() >= rule.getMinReplications())
+					assertFalse(rule.isSatisfied(prefix), "lambda " + lambdas[lambda] + " ran past the precision");
+				prefix.add(replication.getAverageOccupancy());
+			}
+			assertTrue(prefix.getHalfWidth(0.95) <= 0.05 * prefix.getMean());
+			assertEquals(1000L * result.getReplications().size(), result.getTotalSlots());
+			
+			SequentialResult other = results[1][lambda];
+			assertEquals(result.getReplications().size(), other.getReplications().size());
+			assertEquals(result.getOccupancyStatistics().getMean(), other.getOccupancyStatistics().getMean());
+		}
+	}
+	
+	@Test
+	void precisionStopsAtSlotCap() {
+		ReplicationRunner runner = new ReplicationRunner(3, 5);
+		try {
+			SequentialStoppingRule rule = new SequentialStoppingRule(1e-9, 0.95, 2, 5 * 2000L + 1999);
+			for (SequentialResult result : runner.runUntilPrecision(2000, 0.5, new double[] { 0.05, 0.15 }, 0.1, 0.1, rule)) {
+				assertFalse(result.isConverged());
+				assertEquals(5, result.getReplications().size());
+				assertEquals(5 * 2000L, result.getTotalSlots());
+			}
+		} finally {
+			runner.shutdown();
+		}
+	}
+	
+	@Test
+	void replicationStreamsDoNotRepeatAcrossLambdas() {
+		ReplicationRunner runner = new ReplicationRunner(2, 42);
+		try {
+			ReplicationResult[][] results = runner.runReplications(4, 2000, 0.5, LAMBDAS, 0.1, 0.1);
+			Set<Double> seen = new HashSet<Double>();
+			for (ReplicationResult[] row : results)
+				for (ReplicationResult replication : row)
+					assertTrue(seen.add(replication.getAverageOccupancy()), "replication " + replication.getReplication() + " repeats another stream");
+		} finally {
+			runner.shutdown();
+		}
+	}
+	
+	@Test
+	void parallelEngineSharesProcessors() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		ReplicationRunner single = new ReplicationRunner(1, 0);
+		ReplicationRunner full = new ReplicationRunner(processors, 0);
+		try {
+			assertEquals(processors, single.getWorkerThreads());
+			assertEquals(1, full.getWorkerThreads());
+			full.setWorkerThreads(3);
+			assertEquals(3, full.getWorkerThreads());
+		} finally {
+			single.shutdown();
+			full.shutdown();
+		}
+	}
+	
+	@Test
+	void resultsDoNotDependOnThreads() {
+		double[][] averages = new double[2][];
+		int[] threads = { 1, 3 };
+		for (int i = 0; i < threads.length; i++) {
+			ReplicationRunner runner = new ReplicationRunner(threads[i], 7);
+			try {
+				ReplicationResult[][] results = runner.runReplications(3, 2000, 0.5, new double[] { 0.05, 0.15 }, 0.1, 0.1);
+				averages[i] = new double[6];
+				for (int lambda = 0; lambda < 2; lambda++)
+					for (int rep = 0; rep < 3; rep++)
+						averages[i][lambda * 3 + rep] = results[lambda][rep].getAverageOccupancy();
+			} finally {
+				runner.shutdown();
+			}
+		}
+		assertArrayEquals(averages[0], averages[1]);
+	}
+}
@@ -0,0 +1,102 @@
+package simproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ServiceRatesTest {
+	
+	private static final int TIMES = 5000;
+	private static final int[] CAPACITIES = { 3, 1, 2, 1 };
+	
+	@Test
+	void quotasPreferPairRates() {
+		ServiceRates rates = new ServiceRates(3, 2);
+		rates.setCapacity(0, 3);
+		rates.setRate(1, 0, 5);
+		assertEquals(3, rates.getQuota(0, 0));
+		assertEquals(5, rates.getQuota(1, 0));
+		assertEquals(1, rates.getQuota(1, 1));
+	}
+	
+	@Test
+	void unitIsRestoredWhenQuotasGoBackToOne() {
+		ServiceRates rates = new ServiceRates(3, 2);
+		assertTrue(rates.isUnit());
+		rates.setCapacity(1, 3);
+		rates.setRate(2, 0, 2);
+		assertFalse(rates.isUnit());
+		rates.setCapacity(1, 1);
+		assertFalse(rates.isUnit());
+		rates.setRate(2, 0, 1);
+		assertTrue(rates.isUnit());
+		rates.setCapacity(0, 4);
+		rates.setCapacity(0, 2);
+		rates.setCapacity(0, 1);
+		assertTrue(rates.isUnit());
+	}
+	
+	@Test
+	void enginesAgreeWithCapacities() {
+		for (String policy : SchedulingPolicies.getNames()) {
+			int numberOfServers = policy.endsWith("single") ? 1 : CAPACITIES.length;
+			Simulator objects = new Simulator(6, numberOfServers, 13L);
+			ArraySimulator arrays = new ArraySimulator(6, numberOfServers, 13L);
+			for (SimulationEngine engine : new SimulationEngine[] { objects, arrays }) {
+				engine.setSchedulingPolicy(SchedulingPolicies.forName(policy));
+				configure(engine, numberOfServers);
+				engine.runSimulation(TIMES, 0.5, 0.4, 0.1, 0.1);
+			}
+			assertEquals(objects.getTotalPacketsArrived(), arrays.getTotalPacketsArrived(), policy);
+			assertEquals(objects.calculateAvgOccupancy(TIMES), arrays.calculateAvgOccupancy(TIMES), policy);
+		}
+	}
+	
+	/**
+	 * Runs slot by slot under heavy load, so quotas bind, and checks what every
+	 * server took in each slot against the quota for the queue it served.
+	 */
+	@Test
+	void serversNeverExceedTheirQuota() {
+		for (String policy : SchedulingPolicies.getNames()) {
+			int numberOfServers = policy.endsWith("single") ? 1 : CAPACITIES.length;
+			Simulator simulator = new Simulator(6, numberOfServers, 17L);
+			simulator.setSchedulingPolicy(SchedulingPolicies.forName(policy));
+			configure(simulator, numberOfServers);
+			simulator.refreshSimulation();
+			ServiceRates rates = simulator.getServiceRates();
+			TrafficGenerator traffic = new TrafficGenerator(6, numberOfServers, 0.7, 0.9, 0.1, 0.1, new XoshiroRandomSource(3));
+			ConnectivityMatrix connectivity = new ConnectivityMatrix(6, numberOfServers);
+			long[] arrivals = new long[ConnectivityMatrix.wordsFor(6)];
+			long[] served = new long[numberOfServers];
+			boolean quotaReached = false;
+			for (int slot = 0; slot < TIMES; slot++) {
+				traffic.nextConnectivity(connectivity);
+				traffic.nextArrivals(arrivals);
+				simulator.runTimeSlot(connectivity, arrivals);
+				for (SimServer server : simulator.sortServerList()) {
+					int s = server.getServerNumber() - 1;
+					long taken = server.getPacketsServed() - served[s];
+					served[s] = server.getPacketsServed();
+					if (taken == 0)
+						continue;
+					int q = server.getLastServedQueue() - 1;
+					assertTrue(connectivity.isConnected(q, s), policy + ": server " + s + " served unconnected queue " + q);
+					assertTrue(taken <= rates.getQuota(q, s), policy + ": server " + s + " took " + taken + " from queue " + q);
+					quotaReached |= taken > 1;
+				}
+			}
+			assertTrue(quotaReached, policy + " never served more than one packet");
+		}
+	}
+	
+	private static void configure(SimulationEngine engine, int numberOfServers) {
+		for (int s = 0; s < numberOfServers; s++)
+			engine.setServerCapacity(s, CAPACITIES[s]);
+		engine.setServiceRate(2, 0, 1);
+		if (numberOfServers > 1)
+			engine.setServiceRate(4, 1, 4);
+	}
+}
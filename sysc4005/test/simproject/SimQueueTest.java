@@ -0,0 +1,71 @@
+package simproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+import org.junit.jupiter.api.Test;
+
+class SimQueueTest {
+	
+	private static final long NOW = 1000000;
+	
+	/**
+	 * Arrival slots are unique, so the delay popPacket returns identifies the
+	 * packet it removed.
+	 */
+	@Test
+	void popsInArrivalOrderAcrossWrapAndGrowth() {
+		SimQueue queue = new SimQueue(1);
+		ArrayDeque<Long> expected = new ArrayDeque<Long>();
+		long nextArrival = 0;
+		// fill part of the ring, drain most of it so the head moves, then wrap
+		// past the end, then grow while the head is not at zero
+		int[][] steps = { { 10, 8 }, { 12, 5 }, { 30, 7 }, { 100, 90 }, { 3, 45 } };
+		for (int[] step : steps) {
+			for (int i = 0; i < step[0]; i++) {
+				queue.addArrival(nextArrival);
+				expected.addLast(nextArrival++);
+			}
+			assertEquals(expected.size(), queue.getRemainingPackets());
+			for (int i = 0; i < step[1]; i++)
+				assertEquals(NOW - expected.removeFirst(), queue.popPacket(NOW));
+		}
+		assertEquals(0, queue.getRemainingPackets());
+	}
+	
+	@Test
+	void popPacketsRecordsDelaysInOrder() {
+		SimQueue queue = new SimQueue(1);
+		queue.setDelayTimesRecorded(true);
+		for (long slot = 0; slot < 14; slot++)
+			queue.addArrival(slot);
+		assertEquals(14, queue.popPackets(14, NOW));
+		// head is now at 14 of 16, so the next 40 arrivals wrap and then grow
+		for (long slot = 100; slot < 140; slot++)
+			queue.addArrival(slot);
+		assertEquals(3, queue.popPackets(3, NOW));
+		assertEquals(37, queue.popPackets(50, NOW));
+		
+		Iterator<Long> delays = queue.getDelayTimes().iterator();
+		for (long slot = 0; slot < 14; slot++)
+			assertEquals(NOW - slot, delays.next());
+		for (long slot = 100; slot < 140; slot++)
+			assertEquals(NOW - slot, delays.next());
+		assertEquals(54, queue.getDelayStatistics().getCount());
+	}
+	
+	@Test
+	void countingModeKeepsOnlyTheCount() {
+		SimQueue queue = new SimQueue(1);
+		queue.setDelayTracking(false);
+		for (long slot = 0; slot < 40; slot++)
+			queue.addArrival(slot);
+		assertEquals(0, queue.popPacket(NOW));
+		assertEquals(30, queue.popPackets(30, NOW));
+		assertEquals(9, queue.getRemainingPackets());
+		assertEquals(0, queue.getDelayStatistics().getCount());
+		assertEquals(31, queue.getPacketsServed());
+	}
+}
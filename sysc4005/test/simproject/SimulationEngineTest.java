@@ -0,0 +1,59 @@
+package simproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class SimulationEngineTest {
+	
+	private static final int TIMES = 3000;
+	
+	@Test
+	void objectsAndArraysAgree() {
+		int[][] topologies = { { 5, 3 }, { 5, 1 }, { 70, 130 } };
+		for (int[] topology : topologies) {
+			for (String policy : SchedulingPolicies.getNames()) {
+				if (policy.endsWith("single") != (topology[1] == 1))
+					continue;
+				for (boolean warmup : new boolean[] { false, true }) {
+					SimulationEngine objects = new Simulator(topology[0], topology[1], 42L);
+					SimulationEngine arrays = new ArraySimulator(topology[0], topology[1], 42L);
+					for (SimulationEngine engine : new SimulationEngine[] { objects, arrays }) {
+						engine.setSchedulingPolicy(SchedulingPolicies.forName(policy));
+						engine.setWarmupDetection(warmup);
+						engine.runSimulation(TIMES, 0.5, 0.1, 0.1, 0.1);
+					}
+					String label = topology[0] + "x" + topology[1] + " " + policy + " warmup=" + warmup;
+					assertEquals(objects.getTotalPacketsArrived(), arrays.getTotalPacketsArrived(), label);
+					assertEquals(objects.calculateAvgOccupancy(TIMES), arrays.calculateAvgOccupancy(TIMES), label);
+					assertEquals(objects.calculateOccupancyHalfWidth(0.95), arrays.calculateOccupancyHalfWidth(0.95), label);
+				}
+			}
+		}
+	}
+	
+	@Test
+	void runStopsWhenCancelled() {
+		for (String name : SimulationEngines.getNames()) {
+			for (boolean warmup : new boolean[] { false, true }) {
+				SimulationEngine cancelled = SimulationEngines.create(name, 20, 4, new XoshiroRandomSource(5), 2);
+				cancelled.setWarmupDetection(warmup);
+				cancelled.setCancellation(new AtomicBoolean(true));
+				assertThrows(CancellationException.class, () -> cancelled.runSimulation(TIMES, 0.5, 0.1, 0.1, 0.1), name);
+				
+				SimulationEngine interrupted = SimulationEngines.create(name, 20, 4, new XoshiroRandomSource(5), 2);
+				interrupted.setWarmupDetection(warmup);
+				Thread.currentThread().interrupt();
+				try {
+					assertThrows(CancellationException.class, () -> interrupted.runSimulation(TIMES, 0.5, 0.1, 0.1, 0.1), name);
+				} finally {
+					Thread.interrupted();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package simproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class SimulatorTest {
+	
+	private static final int TIMES = 3000;
+	
+	@Test
+	void resizedSimulatorMatchesFreshOne() {
+		int[][] sizes = { { 8, 4 }, { 3, 2 }, { 70, 130 } };
+		for (int[] size : sizes) {
+			Simulator expected = new Simulator(size[0], size[1], 11L);
+			expected.runSimulation(TIMES, 0.5, 0.1, 0.1, 0.1);
+			
+			Simulator resized = new Simulator(5, 3, 11L);
+			resized.setNumberOfQueues(size[0]);
+			resized.setNumberOfServers(size[1]);
+			resized.runSimulation(TIMES, 0.5, 0.1, 0.1, 0.1);
+			assertEquals(expected.getTotalPacketsArrived(), resized.getTotalPacketsArrived());
+			assertEquals(expected.calculateAvgOccupancy(TIMES), resized.calculateAvgOccupancy(TIMES));
+		}
+	}
+	
+	@Test
+	void recordingGettersNeedRecordingOn() {
+		SimQueue queue = new SimQueue(1);
+		assertThrows(IllegalStateException.class, () -> queue.getDelayTimes());
+		queue.setDelayTimesRecorded(true);
+		assertTrue(queue.getDelayTimes().isEmpty());
+		
+		SimServer server = new SimServer(1);
+		assertThrows(IllegalStateException.class, () -> server.getQueuesServed());
+		server.setQueuesServedRecorded(true);
+		assertTrue(server.getQueuesServed().isEmpty());
+	}
+	
+	@Test
+	void countingModeMatchesTrackingMode() {
+		for (boolean warmup : new boolean[] { false, true }) {
+			Simulator tracking = new Simulator(12, 4, 23L);
+			Simulator counting = new Simulator(12, 4, 23L);
+			counting.setDelayTracking(false);
+			for (Simulator simulator : new Simulator[] { tracking, counting }) {
+				simulator.setWarmupDetection(warmup);
+				simulator.runSimulation(TIMES, 0.5, 0.2, 0.1, 0.1);
+			}
+			assertEquals(tracking.getTotalPacketsArrived(), counting.getTotalPacketsArrived());
+			assertEquals(tracking.getTotalPacketsAttempted(), counting.getTotalPacketsAttempted());
+			assertEquals(tracking.calculateAvgOccupancy(TIMES), counting.calculateAvgOccupancy(TIMES));
+			assertEquals(tracking.calculateOccupancyHalfWidth(0.95), counting.calculateOccupancyHalfWidth(0.95));
+			assertTrue(tracking.calculateOccupancyAverage() > 0);
+			assertEquals(tracking.calculateOccupancyAverage(), counting.calculateOccupancyAverage());
+			assertThrows(IllegalStateException.class, () -> counting.calculateAvgDelay());
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package simproject;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SlotKernelTest {
+	
+	private static final int[][] SIZES = { { 1, 1 }, { 5, 3 }, { 63, 64 }, { 64, 65 }, { 130, 7 }, { 1000, 130 } };
+	
+	private SlotKernel scalar;
+	private SlotKernel vector;
+	
+	@BeforeEach
+	void createKernels() {
+		this.scalar = SlotKernels.create(ScalarSlotKernel.NAME);
+		this.vector = SlotKernels.create(VectorSlotKernel.NAME);
+		assumeTrue(VectorSlotKernel.NAME.equals(this.vector.getName()), "Vector API not available");
+	}
+	
+	@Test
+	void connectivityMatchesScalar() {
+		for (int[] size : SIZES) {
+			for (double prob : new double[] { 0, 0.3, 0.5, 1 }) {
+				ConnectivityMatrix expected = new ConnectivityMatrix(size[0], size[1]);
+				ConnectivityMatrix actual = new ConnectivityMatrix(size[0], size[1]);
+				RandomSource scalarRandom = new XoshiroRandomSource(17);
+				RandomSource vectorRandom = new XoshiroRandomSource(17);
+				for (int slot = 0; slot < 20; slot++) {
+					this.scalar.fillConnectivity(expected, prob, scalarRandom);
+					this.vector.fillConnectivity(actual, prob, vectorRandom);
+					assertArrayEquals(expected.getWords(), actual.getWords(), size[0] + "x" + size[1] + " p=" + prob);
+				}
+				assertEquals(scalarRandom.nextLong(), vectorRandom.nextLong());
+			}
+		}
+	}
+	
+	@Test
+	void arrivalsMatchScalar() {
+		for (int[] size : SIZES) {
+			for (boolean correlated : new boolean[] { false, true }) {
+				int numberOfQueues = size[0];
+				CorrelatedUniformRandom scalarChain = new CorrelatedUniformRandom(0.1, 0.1, new XoshiroRandomSource(5));
+				CorrelatedUniformRandom vectorChain = new CorrelatedUniformRandom(0.1, 0.1, new XoshiroRandomSource(5));
+				long[] expected = new long[ConnectivityMatrix.wordsFor(numberOfQueues)];
+				long[] actual = new long[expected.length];
+				for (int slot = 0; slot < 50; slot++) {
+					int expectedArrivals = this.scalar.nextArrivals(scalarChain, 0.2, correlated, numberOfQueues, expected);
+					int actualArrivals = this.vector.nextArrivals(vectorChain, 0.2, correlated, numberOfQueues, actual);
+					assertEquals(expectedArrivals, actualArrivals);
+					assertArrayEquals(expected, actual, numberOfQueues + " queues, correlated=" + correlated);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package simproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class StudentTTest {
+	
+	// { confidence, df, two-sided critical value from published t tables }
+	private static final double[][] TABLE = {
+		{ 0.95, 1, 12.7062 }, { 0.95, 2, 4.3027 }, { 0.95, 3, 3.1824 }, { 0.95, 5, 2.5706 },
+		{ 0.95, 10, 2.2281 }, { 0.95, 19, 2.0930 }, { 0.95, 30, 2.0423 }, { 0.95, 100, 1.9840 },
+		{ 0.95, 1000, 1.9623 }, { 0.90, 10, 1.8125 }, { 0.99, 5, 4.0321 }, { 0.99, 20, 2.8453 },
+	};
+	
+	@Test
+	void criticalValuesMatchTables() {
+		for (double[] row : TABLE)
+			assertEquals(row[2], StudentT.criticalValue(row[0], row[1]), 5e-4, "confidence " + row[0] + ", df " + row[1]);
+	}
+	
+	@Test
+	void normalQuantilesMatchTables() {
+		assertEquals(0, StudentT.normalQuantile(0.5), 1e-9);
+		assertEquals(1.959964, StudentT.normalQuantile(0.975), 1e-6);
+		assertEquals(-2.326348, StudentT.normalQuantile(0.01), 1e-6);
+		assertEquals(-3.090232, StudentT.normalQuantile(0.001), 1e-6);
+		assertEquals(3.719016, StudentT.normalQuantile(0.9999), 1e-6);
+	}
+	
+	@Test
+	void rejectsInvalidArguments() {
+		assertThrows(IllegalArgumentException.class, () -> StudentT.criticalValue(1.0, 10));
+		assertThrows(IllegalArgumentException.class, () -> StudentT.criticalValue(0.95, 0.5));
+		assertThrows(IllegalArgumentException.class, () -> StudentT.normalQuantile(0));
+	}
+}
@@ -0,0 +1,100 @@
+package simproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class SweepOrchestratorTest {
+	
+	private static final double[] LAMBDAS = { 0.05, 0.1, 0.15 };
+	
+	@Test
+	void resultsMatchRunReplications() {
+		ReplicationRunner runner = new ReplicationRunner(3, 9);
+		try {
+			ReplicationResult[][] expected = runner.runReplications(4, 2000, 0.5, LAMBDAS, 0.1, 0.1);
+			List<SweepPoint> points = SweepPoint.grid(new double[] { 0.5 }, LAMBDAS, new double[] { 0.1 }, new double[] { 0.1 });
+			SweepOrchestrator sweep = new SweepOrchestrator(runner, points, 4, 2000, new CountingSink());
+			assertTrue(sweep.run(1, TimeUnit.MINUTES));
+			ReplicationResult[][] actual = sweep.getResults();
+			for (int point = 0; point < LAMBDAS.length; point++)
+				for (int rep = 0; rep < 4; rep++)
+					assertEquals(expected[point][rep].getAverageOccupancy(), actual[point][rep].getAverageOccupancy());
+		} finally {
+			runner.shutdown();
+		}
+	}
+	
+	/**
+	 * Points waiting on replications that cancel() stops must count as
+	 * cancelled, not failed.
+	 */
+	@Test
+	void cancelIsNotAFailure() {
+		for (int attempt = 0; attempt < 50; attempt++) {
+			ReplicationRunner runner = new ReplicationRunner(2, attempt);
+			try {
+				List<SweepPoint> points = SweepPoint.grid(new double[] { 0.5 }, LAMBDAS, new double[] { 0.1 }, new double[] { 0.1 });
+				CountingSink sink = new CountingSink();
+				SweepOrchestrator sweep = new SweepOrchestrator(runner, points, 200, 200, sink);
+				sweep.start();
+				sink.first.await(1, TimeUnit.MINUTES);
+				sweep.cancel();
+				assertTrue(sweep.awaitCompletion(1, TimeUnit.MINUTES));
+				assertTrue(sweep.isCancelled());
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			} finally {
+				runner.shutdown();
+			}
+		}
+	}
+	
+	/**
+	 * A replication that would run for hours must stop when the time box
+	 * ends, so the runner's only thread is free again soon after run returns.
+	 */
+	@Test
+	void timeBoxStopsRunningReplications() throws InterruptedException, ExecutionException, TimeoutException {
+		ReplicationRunner runner = new ReplicationRunner(1, 3);
+		try {
+			List<SweepPoint> points = SweepPoint.grid(new double[] { 0.5 }, new double[] { 0.1, 0.2 }, new double[] { 0.1 }, new double[] { 0.1 });
+			SweepOrchestrator sweep = new SweepOrchestrator(runner, points, 1, Integer.MAX_VALUE, new CountingSink());
+			assertFalse(sweep.run(200, TimeUnit.MILLISECONDS));
+			for (ReplicationResult[] row : sweep.getResults())
+				assertNull(row[0]);
+			assertEquals("free", runner.getExecutor().submit(new Callable<String>() {
+				@Override
+				public String call() {
+					return "free";
+				}
+			}).get(30, TimeUnit.SECONDS));
+		} finally {
+			runner.shutdown();
+		}
+	}
+	
+	private static class CountingSink implements SweepSink {
+		
+		private CountDownLatch first = new CountDownLatch(1);
+		
+		@Override
+		public void replicationCompleted(SweepPoint point, ReplicationResult result) {
+			this.first.countDown();
+		}
+		
+		@Override
+		public void pointCompleted(SweepPoint point, ReplicationResult[] results) {
+		}
+	}
+}
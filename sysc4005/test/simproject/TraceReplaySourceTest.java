@@ -0,0 +1,46 @@
+package simproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TraceReplaySourceTest {
+	
+	static final int TIMES = 3000;
+	
+	@TempDir
+	Path tempDir;
+	
+	@Test
+	void traceReplayMatchesGenerator() throws IOException {
+		Path trace = writeTrace(this.tempDir, 40, 16, 3);
+		Simulator expected = new Simulator(40, 16, new XoshiroRandomSource(3));
+		expected.runSimulation(TIMES, 0.3, 0.15, 0.1, 0.1);
+		
+		RandomSource random = new XoshiroRandomSource(3);
+		random.split();
+		Simulator actual = new Simulator(40, 16, random);
+		try (TraceReplaySource replay = new TraceReplaySource(trace, 4096 + 8)) {
+			actual.runSimulation(TIMES, replay);
+		}
+		assertEquals(expected.getTotalPacketsArrived(), actual.getTotalPacketsArrived());
+		assertEquals(expected.calculateAvgOccupancy(TIMES), actual.calculateAvgOccupancy(TIMES));
+		assertEquals(expected.calculateAvgDelay(), actual.calculateAvgDelay());
+	}
+	
+	/**
+	 * Records TIMES slots of the traffic a simulator seeded with seed draws
+	 * in runSimulation.
+	 */
+	static Path writeTrace(Path directory, int numberOfQueues, int numberOfServers, long seed) throws IOException {
+		Path trace = directory.resolve("trace-" + seed + ".bin");
+		try (TraceWriter writer = new TraceWriter(trace, numberOfQueues, numberOfServers)) {
+			writer.write(new TrafficGenerator(numberOfQueues, numberOfServers, 0.3, 0.15, 0.1, 0.1, new XoshiroRandomSource(seed).split()), TIMES);
+		}
+		return trace;
+	}
+}
@@ -0,0 +1,52 @@
+package simproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class WarmupDetectorTest {
+	
+	@Test
+	void stationaryInputIsSteadyOnceEnoughBatchesAreIn() {
+		WarmupDetector detector = new WarmupDetector();
+		Random random = new Random(3);
+		for (int i = 0; i < WarmupDetector.MIN_BATCHES * WarmupDetector.BATCH_SIZE - 1; i++)
+			detector.add(random.nextDouble());
+		assertFalse(detector.isSteady());
+		detector.add(random.nextDouble());
+		assertTrue(detector.isSteady());
+	}
+	
+	/**
+	 * A transient over the first transientBatches batches must not be declared
+	 * over until it covers at most a quarter of the batches seen.
+	 */
+	@Test
+	void transientIsNotSteadyUntilItIsAQuarterOfTheRun() {
+		int transientBatches = 160;
+		int transientObservations = transientBatches * WarmupDetector.BATCH_SIZE;
+		WarmupDetector detector = new WarmupDetector();
+		Random random = new Random(5);
+		int firstSteady = -1;
+		for (int i = 0; i < 20 * transientObservations && firstSteady < 0; i++) {
+			double drift = i < transientObservations ? 5.0 * (transientObservations - i) / transientObservations : 0;
+			detector.add(drift + random.nextDouble());
+			if (detector.getNumberOfBatches() % 20 == 0 && detector.isSteady())
+				firstSteady = detector.getNumberOfBatches();
+		}
+		assertTrue(firstSteady >= 3 * transientBatches, "steady after only " + firstSteady + " batches");
+		assertTrue(Math.abs(detector.getTruncationBatch() - transientBatches) < transientBatches / 4, "truncated at " + detector.getTruncationBatch());
+	}
+	
+	@Test
+	void truncationPointFindsStepInLevel() {
+		double[] batchMeans = new double[400];
+		for (int i = 0; i < batchMeans.length; i++)
+			batchMeans[i] = i < 50 ? 10 + (i & 1) : (i & 1);
+		assertEquals(50, WarmupDetector.truncationPoint(batchMeans, batchMeans.length));
+	}
+}
@@ -0,0 +1,71 @@
+package simproject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class XoshiroRandomSourceTest {
+	
+	@Test
+	void sameSeedGivesSameStream() {
+		RandomSource a = new XoshiroRandomSource(42);
+		RandomSource b = new XoshiroRandomSource(42);
+		for (int i = 0; i < 1000; i++)
+			assertEquals(a.nextLong(), b.nextLong());
+		RandomSource childA = a.split();
+		RandomSource childB = b.split();
+		for (int i = 0; i < 1000; i++)
+			assertEquals(childA.nextLong(), childB.nextLong());
+	}
+	
+	@Test
+	void nextLongsMatchesNextLong() {
+		RandomSource a = new XoshiroRandomSource(7);
+		RandomSource b = new XoshiroRandomSource(7);
+		long[] buffer = new long[100];
+		b.nextLongs(buffer, buffer.length);
+		for (long value : buffer)
+			assertEquals(a.nextLong(), value);
+	}
+	
+	/**
+	 * Splits the way the runners do, root to lambda to replication to
+	 * traffic, and checks that no two streams share any of their first
+	 * outputs.
+	 */
+	@Test
+	void nestedSplitsDoNotCollide() {
+		RandomSource root = new XoshiroRandomSource(42);
+		List<RandomSource> streams = new ArrayList<RandomSource>();
+		for (int lambda = 0; lambda < 4; lambda++) {
+			RandomSource lambdaRandom = root.split();
+			for (int rep = 0; rep < 4; rep++) {
+				RandomSource replicationRandom = lambdaRandom.split();
+				streams.add(replicationRandom.split());
+				streams.add(replicationRandom);
+			}
+			streams.add(lambdaRandom);
+		}
+		streams.add(root);
+		Set<Long> seen = new HashSet<Long>();
+		for (int i = 0; i < streams.size(); i++)
+			for (int draw = 0; draw < 256; draw++)
+				assertTrue(seen.add(streams.get(i).nextLong()), "stream " + i + " repeats an earlier output at draw " + draw);
+	}
+	
+	@Test
+	void nextIntStaysInBounds() {
+		RandomSource random = new XoshiroRandomSource(1);
+		int[] counts = new int[3];
+		for (int i = 0; i < 300000; i++)
+			counts[random.nextInt(3)]++;
+		for (int count : counts)
+			assertTrue(Math.abs(count - 100000) < 2000, "count " + count);
+	}
+}